@@ -0,0 +1,68 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import java.util.stream.Stream;
+
+/**
+ * 64-bit digests of the lines of analysis results. Comparing digests
+ * of results avoids keeping and comparing their string representations,
+ * which are only needed to report mismatches.
+ */
+final class ResultDigest {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ResultDigest() {
+    }
+
+    /**
+     * @return the digest of the given characters.
+     */
+    static long of(CharSequence s) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < s.length(); ++i) {
+            h = (h ^ s.charAt(i)) * FNV_PRIME;
+        }
+        // finalization of MurmurHash3, spreads FNV hash over all bits
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * @return the digest of the given lines. The digest is independent of
+     * the order of the lines and ignores duplicate lines, as the lines
+     * of results are compared as sets.
+     */
+    static long ofLines(Stream<String> lines) {
+        return lines.distinct()
+                .mapToLong(ResultDigest::of)
+                .sum();
+    }
+}
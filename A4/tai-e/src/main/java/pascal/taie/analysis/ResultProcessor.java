@@ -28,6 +28,7 @@ import pascal.taie.World;
 import pascal.taie.analysis.graph.callgraph.CallGraph;
 import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JClass;
@@ -36,6 +37,7 @@ import pascal.taie.util.collection.CollectionUtils;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
 
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
@@ -43,6 +45,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -51,6 +54,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -61,6 +65,11 @@ import static pascal.taie.util.collection.CollectionUtils.getOne;
  * This class is designed mainly for testing purpose. Currently, it supports
  * input/output analysis results from/to file, and compare analysis results
  * with input results. This analysis should be placed after the other analyses.
+ * With option "compare-mode:digest", the results are first compared
+ * by the digests of their string representations, and only the results
+ * whose digests mismatch are compared line by line. In this mode, the
+ * input file is streamed into the digests of the expected results, and
+ * only the expected results of the mismatched ones are read again.
  */
 public class ResultProcessor extends ProgramAnalysis {
 
@@ -74,6 +83,12 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private MultiMap<Pair<String, String>, String> inputs;
 
+    /**
+     * Digests of the expected results of each method and analysis,
+     * only used when comparing in digest mode.
+     */
+    private Map<Pair<String, String>, Long> digests;
+
     private Set<String> mismatches;
 
     public ResultProcessor(AnalysisConfig config) {
@@ -123,24 +138,84 @@ public class ResultProcessor extends ProgramAnalysis {
     }
 
     private void readInputs() {
-        String input = getOptions().getString("file");
-        Path path = Path.of(input);
-        try {
-            inputs = Maps.newMultiMap();
-            BufferedReader reader = Files.newBufferedReader(path);
+        if (isDigestCompare()) {
+            readDigests();
+        } else {
+            inputs = readInputs(key -> true);
+        }
+    }
+
+    /**
+     * Reads the expected results of the methods and analyses
+     * accepted by given filter.
+     */
+    private MultiMap<Pair<String, String>, String> readInputs(
+            Predicate<Pair<String, String>> filter) {
+        MultiMap<Pair<String, String>, String> inputs = Maps.newMultiMap();
+        try (BufferedReader reader = Files.newBufferedReader(getInputPath())) {
             String line;
             Pair<String, String> currentKey = null;
             while ((line = reader.readLine()) != null) {
                 Pair<String, String> key = extractKey(line);
                 if (key != null) {
-                    currentKey = key;
-                } else if (!line.isBlank()) {
+                    currentKey = filter.test(key) ? key : null;
+                } else if (currentKey != null && !line.isBlank()) {
                     inputs.put(currentKey, line);
                 }
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to read input file", e);
         }
+        return inputs;
+    }
+
+    /**
+     * Streams the expected results into their digests without keeping
+     * their lines. As {@link ResultDigest#ofLines(Stream)}, the digest of
+     * each result is the sum of the digests of its distinct lines.
+     */
+    private void readDigests() {
+        digests = Maps.newMap();
+        try (BufferedReader reader = Files.newBufferedReader(getInputPath())) {
+            String line;
+            Pair<String, String> currentKey = null;
+            // digests of the distinct lines of the current result
+            Set<Long> lineDigests = Sets.newSet();
+            while ((line = reader.readLine()) != null) {
+                Pair<String, String> key = extractKey(line);
+                if (key != null) {
+                    currentKey = key;
+                    lineDigests.clear();
+                    digests.putIfAbsent(key, 0L);
+                } else if (currentKey != null && !line.isBlank()) {
+                    long digest = ResultDigest.of(line);
+                    if (lineDigests.add(digest)) {
+                        digests.merge(currentKey, digest, Long::sum);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read input file", e);
+        }
+    }
+
+    private Path getInputPath() {
+        return Path.of(getOptions().getString("file"));
+    }
+
+    /**
+     * @return whether compare the digests of the results (compare-mode:digest)
+     * before comparing them line by line (compare-mode:full, default).
+     */
+    private boolean isDigestCompare() {
+        String mode = getOptions().getString("compare-mode");
+        if (mode == null || mode.equals("full")) {
+            return false;
+        } else if (mode.equals("digest")) {
+            return true;
+        } else {
+            throw new ConfigException("Unknown compare mode: " + mode);
+        }
     }
 
     private static Pair<String, String> extractKey(String line) {
@@ -202,31 +277,66 @@ public class ResultProcessor extends ProgramAnalysis {
 
     private void processResults(Stream<JMethod> methods, List<String> analyses,
                                 BiFunction<JMethod, String, ?> resultGetter) {
+        List<Pair<JMethod, String>> mismatched = new ArrayList<>();
         methods.forEach(method ->
                 analyses.forEach(id -> {
                     switch (action) {
                         case "dump" -> dumpResult(method, id, resultGetter);
-                        case "compare" -> compareResult(method, id, resultGetter);
+                        case "compare" -> {
+                            if (digests == null) {
+                                compareResult(method, id, resultGetter);
+                            } else if (!matchesDigest(method, id, resultGetter)) {
+                                mismatched.add(new Pair<>(method, id));
+                            }
+                        }
                     }
                 })
         );
+        if (!mismatched.isEmpty()) {
+            // read the expected results of the mismatched ones,
+            // and compare them line by line
+            Set<Pair<String, String>> keys = mismatched.stream()
+                    .map(p -> new Pair<>(p.first().toString(), p.second()))
+                    .collect(Collectors.toSet());
+            inputs = readInputs(keys::contains);
+            mismatched.forEach(p -> compareResult(p.first(), p.second(), resultGetter));
+        }
     }
 
     private void dumpResult(JMethod method, String id,
                             BiFunction<JMethod, String, ?> resultGetter) {
         out.printf("-------------------- %s (%s) --------------------%n", method, id);
-        Object result = resultGetter.apply(method, id);
+        resultLines(method, resultGetter.apply(method, id))
+                .forEach(out::println);
+        out.println();
+    }
+
+    /**
+     * @return the lines of the string representation of given result
+     * of {@code method}.
+     */
+    private static Stream<String> resultLines(JMethod method, Object result) {
         if (result instanceof Set) {
-            ((Set<?>) result).forEach(e -> out.println(toString(e)));
+            return ((Set<?>) result).stream().map(ResultProcessor::toString);
         } else if (result instanceof StmtResult<?> stmtResult) {
-            method.getIR()
+            return method.getIR()
                     .stmts()
                     .filter(stmtResult::isRelevant)
-                    .forEach(stmt -> out.println(toString(stmt, stmtResult)));
+                    .map(stmt -> toString(stmt, stmtResult));
         } else {
-            out.println(toString(result));
+            return Stream.of(toString(result));
         }
-        out.println();
+    }
+
+    /**
+     * @return {@code true} if the digest of the result of analysis {@code id}
+     * for {@code method} equals the digest of the expected result.
+     */
+    private boolean matchesDigest(JMethod method, String id,
+                                  BiFunction<JMethod, String, ?> resultGetter) {
+        Long expected = digests.get(new Pair<>(method.toString(), id));
+        return expected != null && expected == ResultDigest.ofLines(
+                resultLines(method, resultGetter.apply(method, id)));
     }
 
     /**
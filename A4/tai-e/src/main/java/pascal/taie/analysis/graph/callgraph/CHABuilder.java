@@ -118,7 +118,15 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
      * can be found.
      */
     private JMethod dispatch(JClass jclass, Subsignature subsignature) {
-        // TODO - finish me
+        return DispatchTable.dispatch(jclass.getType(), subsignature,
+                () -> lookup(jclass, subsignature));
+    }
+
+    /**
+     * Looks up the target method in given class and its superclasses.
+     * The results are cached by {@link #dispatch(JClass, Subsignature)}.
+     */
+    private JMethod lookup(JClass jclass, Subsignature subsignature) {
         JMethod method = jclass.getDeclaredMethod(subsignature); // 根据给定的类和方法的子签名查找目标方法
         if(method != null && !method.isAbstract()){ // 如果在当前类中找到目标方法且该方法不是抽象方法，则直接返回
             return method;
@@ -0,0 +1,104 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.SolverMetrics;
+
+import javax.annotation.Nullable;
+
+/**
+ * Work list which records the processing of each polled entry in
+ * the metrics of the solver. The solver processes an entry from the time
+ * it is polled until the next entry is polled or the work list is found
+ * empty, so the entries are timed without instrumenting the loop
+ * which processes them.
+ */
+class MeteredWorkList extends WorkList {
+
+    private final WorkList workList;
+
+    private final SolverMetrics metrics;
+
+    /**
+     * Pointer of the entry being processed, or null if there is none.
+     */
+    private @Nullable Pointer pointer;
+
+    private int oldSize;
+
+    private long start;
+
+    MeteredWorkList(WorkList workList, SolverMetrics metrics) {
+        this.workList = workList;
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the work list whose entries are metered.
+     */
+    WorkList getWorkList() {
+        return workList;
+    }
+
+    @Override
+    void addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        workList.addEntry(pointer, pointsToSet);
+    }
+
+    @Override
+    Entry pollEntry() {
+        finishEntry();
+        Entry entry = workList.pollEntry();
+        if (entry != null) {
+            pointer = entry.pointer();
+            oldSize = pointer.getPointsToSet().size();
+            start = metrics.start();
+        }
+        return entry;
+    }
+
+    @Override
+    boolean isEmpty() {
+        boolean empty = workList.isEmpty();
+        if (empty) {
+            finishEntry();
+        }
+        return empty;
+    }
+
+    @Override
+    long getPolledEntries() {
+        return workList.getPolledEntries();
+    }
+
+    /**
+     * Records the processing of the entry polled last, if any.
+     */
+    void finishEntry() {
+        if (pointer != null) {
+            metrics.stopPropagate(start,
+                    Math.max(0, pointer.getPointsToSet().size() - oldSize));
+            pointer = null;
+        }
+    }
+}
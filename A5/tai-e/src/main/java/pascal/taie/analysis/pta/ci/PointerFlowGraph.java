@@ -29,6 +29,7 @@ import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.TwoKeyMap;
+import pascal.taie.util.graph.Graph;
 
 import java.util.Collections;
 import java.util.Map;
@@ -37,7 +38,7 @@ import java.util.Set;
 /**
  * Represents pointer flow graph in pointer analysis.
  */
-class PointerFlowGraph {
+class PointerFlowGraph implements Graph<Pointer> {
 
     /**
      * Set of all pointer in this PFG.
@@ -69,6 +70,13 @@ class PointerFlowGraph {
      */
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
+    /**
+     * Map from a pointer (node) to its predecessors in PFG.
+     */
+    private final MultiMap<Pointer, Pointer> predecessors = Maps.newMultiMap();
+
+    private int edgeCount = 0;
+
     /**
      * Returns all pointers in this PFG.
      */
@@ -128,13 +136,49 @@ class PointerFlowGraph {
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        if (successors.put(source, target)) {
+            predecessors.put(target, source);
+            ++edgeCount;
+            return true;
+        }
+        return false;
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
-    Set<Pointer> getSuccsOf(Pointer pointer) {
+    @Override
+    public Set<Pointer> getSuccsOf(Pointer pointer) {
         return successors.get(pointer);
     }
+
+    /**
+     * @return predecessors of given pointer in the PFG.
+     */
+    @Override
+    public Set<Pointer> getPredsOf(Pointer pointer) {
+        return predecessors.get(pointer);
+    }
+
+    @Override
+    public boolean hasNode(Pointer pointer) {
+        return pointers.contains(pointer);
+    }
+
+    @Override
+    public boolean hasEdge(Pointer source, Pointer target) {
+        return successors.contains(source, target);
+    }
+
+    @Override
+    public Set<Pointer> getNodes() {
+        return getPointers();
+    }
+
+    /**
+     * @return the number of edges of this PFG.
+     */
+    int getNumberOfEdges() {
+        return edgeCount;
+    }
 }
@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.ci;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
@@ -89,6 +90,8 @@ class ResultProcessor {
         int aptSize = sum(getPointers(result, ArrayIndex.class), getSize);
         int reachable = result.getCallGraph().getNumberOfMethods();
         int callEdges = result.getCallGraph().getNumberOfEdges();
+        long hits = DispatchTable.getHits();
+        long lookups = hits + DispatchTable.getMisses();
         logger.info("-------------- Pointer analysis statistics: --------------");
         logger.info(String.format("%-30s%s", "#var pointers:", format(vars)));
         logger.info(String.format("%-30s%s", "#var points-to:", format(vptSize)));
@@ -97,10 +100,12 @@ class ResultProcessor {
         logger.info(String.format("%-30s%s", "#array indexes points-to:", format(aptSize)));
         logger.info(String.format("%-30s%s", "#reachable methods:", format(reachable)));
         logger.info(String.format("%-30s%s", "#call graph edges:", format(callEdges)));
+        logger.info(String.format("%-30s%s / %s lookups (%.1f%%)", "#dispatch cache hits:",
+                format(hits), format(lookups), 100.0 * hits / Math.max(lookups, 1)));
         logger.info("----------------------------------------");
     }
 
-    private static String format(int i) {
+    private static String format(long i) {
         return formatter.format(i);
     }
 
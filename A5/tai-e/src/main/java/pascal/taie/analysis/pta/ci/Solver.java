@@ -25,12 +25,14 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
 import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.SolverMetrics;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
@@ -48,11 +50,14 @@ import pascal.taie.util.AnalysisException;
 import pascal.taie.language.type.Type;
 
 import java.util.List;
+import java.util.Objects;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    private final AnalysisOptions options;
+
     private final HeapModel heapModel;
 
     private DefaultCallGraph callGraph;
@@ -65,7 +70,13 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    /**
+     * Metrics of this run, exported if option "metrics" is set.
+     */
+    private SolverMetrics metrics;
+
+    Solver(AnalysisOptions options, HeapModel heapModel) {
+        this.options = options;
         this.heapModel = heapModel;
     }
 
@@ -75,21 +86,54 @@ class Solver {
     void solve() {
         initialize();
         analyze();
+        WorkList list = workList;
+        if (workList instanceof MeteredWorkList meteredWorkList) {
+            meteredWorkList.finishEntry();
+            list = meteredWorkList.getWorkList();
+        }
+        logger.info("{} work-list entries propagated in {} order",
+                list.getPolledEntries(),
+                Objects.requireNonNullElse(options.getString("work-list-order"), "fifo"));
+        if (list instanceof PriorityWorkList priorityWorkList &&
+                priorityWorkList.getTopoSorts() > 0) {
+            logger.info("PFG sorted topologically {} times",
+                    priorityWorkList.getTopoSorts());
+        }
+        exportMetrics();
+    }
+
+    private void exportMetrics() {
+        metrics.addCounter("reachable-methods", callGraph.getNumberOfMethods());
+        metrics.addCounter("call-edges", callGraph.getNumberOfEdges());
+        metrics.addCounter("polled-entries", workList.getPolledEntries());
+        String output = metrics.export();
+        if (output != null) {
+            logger.info("Metrics written to {}", output);
+        }
     }
 
     /**
      * Initializes pointer analysis.
      */
     private void initialize() {
-        workList = new WorkList();
         pointerFlowGraph = new PointerFlowGraph();
         callGraph = new DefaultCallGraph();
+        metrics = new SolverMetrics(options, callGraph);
+        workList = PriorityWorkList.make(
+                options.getString("work-list-order"), pointerFlowGraph);
+        if (metrics.isEnabled()) {
+            // the entries are processed by analyze(), so they are
+            // timed when they are polled from the work list
+            workList = new MeteredWorkList(workList, metrics);
+        }
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
         // initialize main method
         JMethod main = World.get().getMainMethod();
         callGraph.addEntryMethod(main);
+        long start = metrics.start();
         addReachable(main);
+        metrics.stop(SolverMetrics.Phase.ENTRY_METHODS, start);
     }
 
     /**
@@ -150,7 +194,7 @@ class Solver {
      */
     private JMethod resolveCallee(Obj recv, Invoke callSite) {
         Type type = recv != null ? recv.getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        return DispatchTable.resolveCallee(type, callSite);
     }
 
     CIPTAResult getResult() {
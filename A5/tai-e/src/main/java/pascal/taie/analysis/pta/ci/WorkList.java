@@ -27,11 +27,19 @@ import java.util.Queue;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * Entries are polled in FIFO order by default;
+ * see {@link PriorityWorkList} for other orders.
  */
 class WorkList {
 
     private final Queue<Entry> entries = new ArrayDeque<>();
 
+    /**
+     * Number of entries which were polled, i.e., propagated.
+     */
+    private long polledEntries = 0;
+
     /**
      * Adds an entry to the work list.
      */
@@ -44,7 +52,11 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Entry entry = entries.poll();
+        if (entry != null) {
+            ++polledEntries;
+        }
+        return entry;
     }
 
     /**
@@ -54,6 +66,14 @@ class WorkList {
         return entries.isEmpty();
     }
 
+    /**
+     * @return the number of entries which were polled, i.e., the number
+     * of propagations of the solver.
+     */
+    long getPolledEntries() {
+        return polledEntries;
+    }
+
     /**
      * Represents entries in the work list.
      * Each entry consists of a pointer and a points-to set.
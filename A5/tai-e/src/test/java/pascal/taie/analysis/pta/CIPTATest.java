@@ -78,4 +78,16 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testTopoWorkListOrder() {
+        Tests.testCIPTA(DIR, "Example", "work-list-order:topo");
+        Tests.testCIPTA(DIR, "InstanceField", "work-list-order:topo");
+    }
+
+    @Test
+    public void testLRFWorkListOrder() {
+        Tests.testCIPTA(DIR, "Example", "work-list-order:lrf");
+        Tests.testCIPTA(DIR, "InstanceField", "work-list-order:lrf");
+    }
 }
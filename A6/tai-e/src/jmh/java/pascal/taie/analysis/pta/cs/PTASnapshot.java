@@ -0,0 +1,496 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ListContextFactory;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MockObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot of the results of analyzing a test program of cspta, which the
+ * benchmarks replay, so that they measure the data structures with the
+ * shapes that arise in real analyses instead of random data.
+ * <p>
+ * The solver of the assignment is a skeleton, so a snapshot is not captured
+ * by running it, but read from the recorded results of the tests (i.e., the
+ * expected results, which were produced by a complete solver with the
+ * context sensitivity given in {@link #RECORDED}). The variables, objects
+ * and contexts in the results are resolved in the world of the program by
+ * their string representations, and the elements which cannot be resolved
+ * are replaced by mock objects. The PFG edges are not recorded, so they are
+ * derived from the statements of the recorded methods and the recorded
+ * points-to sets, by the rules of the analysis.
+ */
+class PTASnapshot {
+
+    private static final String CLASS_PATH = "src/test/resources/pta/cspta";
+
+    /**
+     * The recorded programs and the context sensitivity of their results.
+     */
+    private static final Map<String, String> RECORDED = Map.of(
+            "InstanceField", "ci",
+            "New", "ci",
+            "StoreLoad", "ci",
+            "OneType", "1-type",
+            "TwoCall", "2-call",
+            "TwoObject", "2-obj",
+            "TwoType", "2-type");
+
+    /**
+     * Options of the heap model of the recorded results.
+     */
+    private static final AnalysisOptions OPTIONS = new AnalysisOptions(Map.of(
+            "merge-string-constants", false,
+            "merge-string-objects", false,
+            "merge-string-builders", false,
+            "merge-exception-objects", true));
+
+    /**
+     * Non-empty points-to sets of all pointers.
+     */
+    final List<List<CSObj>> pointsToSets = new ArrayList<>();
+
+    /**
+     * Distinct contexts of all variables and objects,
+     * interned by {@link #contextFactory}.
+     */
+    final List<Context> contexts;
+
+    final List<CSVar> vars;
+
+    final List<CSObj> objects;
+
+    /**
+     * PFG edges, each of which is a pair of source and target.
+     */
+    final List<Pointer[]> edges = new ArrayList<>();
+
+    final ListContextFactory contextFactory;
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    /**
+     * Program elements of the recorded methods by their string
+     * representations, i.e., the objects, call sites and types
+     * which may be context elements.
+     */
+    private final Map<String, Object> elements = Maps.newMap();
+
+    /**
+     * Mock objects which replace the elements that cannot be resolved.
+     */
+    private final Map<String, Obj> mocks = Maps.newMap();
+
+    private final Map<String, Context> parsedContexts = Maps.newMap();
+
+    private final Map<JMethod, Map<String, Var>> methodVars = Maps.newMap();
+
+    private final Map<CSVar, List<CSObj>> varPointsToSets = new LinkedHashMap<>();
+
+    private final Set<Pair<Pointer, Pointer>> edgeSet = new LinkedHashSet<>();
+
+    /**
+     * @param entries the recorded pointers and their points-to sets
+     * @param factory the factory of the running analysis, which interns
+     *                the contexts made by the context selector
+     */
+    private PTASnapshot(List<Pair<String, String>> entries,
+                        ListContextFactory factory, ContextSelector selector) {
+        this.contextFactory = factory;
+        Set<JMethod> methods = new LinkedHashSet<>();
+        for (Pair<String, String> entry : entries) {
+            if (isVar(entry.first())) {
+                methods.add(getMethod(entry.first()));
+            }
+        }
+        collectElements(methods);
+        Set<CSObj> csObjs = new LinkedHashSet<>();
+        for (Pair<String, String> entry : entries) {
+            List<CSObj> pts = new ArrayList<>();
+            for (String obj : split(entry.second())) {
+                int end = contextEnd(obj);
+                pts.add(csManager.getCSObj(getContext(obj.substring(0, end)),
+                        getObj(obj.substring(end + 1))));
+            }
+            csObjs.addAll(pts);
+            if (isVar(entry.first())) {
+                varPointsToSets.put(getCSVar(entry.first()), pts);
+            }
+            if (!pts.isEmpty()) {
+                pointsToSets.add(List.copyOf(pts));
+            }
+        }
+        vars = List.copyOf(varPointsToSets.keySet());
+        objects = List.copyOf(csObjs);
+        Set<Context> ctxs = new LinkedHashSet<>();
+        vars.forEach(v -> ctxs.add(v.getContext()));
+        objects.forEach(o -> ctxs.add(o.getContext()));
+        contexts = List.copyOf(ctxs);
+        deriveEdges(selector);
+        edgeSet.forEach(e -> edges.add(new Pointer[]{ e.first(), e.second() }));
+    }
+
+    /**
+     * Builds the world of given test program, and reads the snapshot
+     * from its recorded results.
+     *
+     * @throws IllegalArgumentException if the results of the program
+     *                                  are not recorded
+     * @throws IllegalStateException    if the snapshot is empty, or the
+     *                                  recorded methods are not in the program
+     */
+    static PTASnapshot capture(String program) {
+        String cs = RECORDED.get(program);
+        if (cs == null) {
+            throw new IllegalArgumentException("No recorded results of " + program);
+        }
+        Main.buildWorld("-pp", "-cp", CLASS_PATH, "-m", program);
+        List<Pair<String, String>> entries = readEntries(
+                Path.of(CLASS_PATH, program + "-cspta-expected.txt"));
+        ListContextFactory factory = new ListContextFactory();
+        ListContextFactory.setCurrent(factory);
+        PTASnapshot snapshot;
+        try {
+            snapshot = new PTASnapshot(entries, factory,
+                    CSPTA.getContextSelector(cs));
+        } finally {
+            ListContextFactory.setCurrent(null);
+        }
+        if (snapshot.vars.isEmpty() || snapshot.pointsToSets.isEmpty() ||
+                snapshot.edges.isEmpty()) {
+            throw new IllegalStateException("Empty snapshot of " + program +
+                    ": " + snapshot.vars.size() + " variables, " +
+                    snapshot.pointsToSets.size() + " points-to sets, " +
+                    snapshot.edges.size() + " PFG edges");
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reads the pointers and their points-to sets in the sections
+     * "Points-to sets of all ..." of given result file.
+     */
+    private static List<Pair<String, String>> readEntries(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        }
+        List<Pair<String, String>> entries = new ArrayList<>();
+        boolean inPointsTo = false;
+        for (String line : lines) {
+            int arrow = line.indexOf(" -> ");
+            if (line.startsWith("Points-to sets of all")) {
+                inPointsTo = true;
+            } else if (arrow < 0) {
+                // other sections, e.g., the detected taint flows
+                inPointsTo = inPointsTo && line.isEmpty();
+            } else if (inPointsTo) {
+                entries.add(new Pair<>(line.substring(0, arrow),
+                        line.substring(arrow + 4)));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return true if given pointer is a variable "[context]:<method>/name".
+     */
+    private static boolean isVar(String pointer) {
+        return pointer.startsWith("[") &&
+                pointer.startsWith(":<", contextEnd(pointer));
+    }
+
+    private JMethod getMethod(String var) {
+        String signature = var.substring(contextEnd(var) + 1, var.lastIndexOf('/'));
+        JMethod method = World.get().getClassHierarchy().getMethod(signature);
+        if (method == null) {
+            throw new IllegalStateException("Recorded method " + signature +
+                    " is not in the program");
+        }
+        return method;
+    }
+
+    private CSVar getCSVar(String var) {
+        JMethod method = getMethod(var);
+        Map<String, Var> vars = methodVars.computeIfAbsent(method, m -> {
+            Map<String, Var> map = Maps.newMap();
+            m.getIR().getVars().forEach(v -> map.put(v.getName(), v));
+            return map;
+        });
+        String name = var.substring(var.lastIndexOf('/') + 1);
+        Var v = vars.get(name);
+        if (v == null) {
+            throw new IllegalStateException("Recorded variable " + name +
+                    " is not in " + method);
+        }
+        int end = contextEnd(var);
+        return csManager.getCSVar(getContext(var.substring(0, end)), v);
+    }
+
+    /**
+     * Collects the objects, call sites and declaring types
+     * of given methods, by their string representations.
+     */
+    private void collectElements(Set<JMethod> methods) {
+        HeapModel heapModel = new AllocationSiteBasedModel(OPTIONS);
+        for (JMethod method : methods) {
+            Type type = method.getDeclaringClass().getType();
+            elements.put(type.toString(), type);
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof New newStmt) {
+                    Obj obj = heapModel.getObj(newStmt);
+                    elements.put(obj.toString(), obj);
+                } else if (stmt instanceof Invoke invoke) {
+                    elements.put(invoke.toString(), invoke);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the element of given string representation, or a mock
+     * object if there is no such element (e.g., taint objects).
+     */
+    private Object getElement(String s) {
+        Object element = elements.get(s);
+        return element != null ? element : getMock(s);
+    }
+
+    private Obj getObj(String s) {
+        return getElement(s) instanceof Obj obj ? obj : getMock(s);
+    }
+
+    private Obj getMock(String s) {
+        return mocks.computeIfAbsent(s, k -> new MockObj("RecordedObj", k,
+                World.get().getTypeSystem().getClassType("java.lang.Object")));
+    }
+
+    /**
+     * @return the context of given string representation "[e1, e2, ...]".
+     */
+    private Context getContext(String s) {
+        Context context = parsedContexts.get(s);
+        if (context == null) {
+            // made while the factory of this snapshot is the current one
+            context = ListContext.make(split(s).stream()
+                    .map(this::getElement)
+                    .toArray());
+            parsedContexts.put(s, context);
+        }
+        return context;
+    }
+
+    /**
+     * @return the end of the context "[...]" at the start of given string.
+     */
+    private static int contextEnd(String s) {
+        int depth = 0;
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            if (c == '[' || c == '{' || c == '(' || c == '<') {
+                ++depth;
+            } else if (c == ']' || c == '}' || c == ')' || c == '>') {
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        throw new IllegalStateException("Malformed recorded element: " + s);
+    }
+
+    /**
+     * Splits a list "[e1, e2, ...]" into its elements, which may contain
+     * nested lists, braces, parentheses and angle brackets.
+     */
+    private static List<String> split(String list) {
+        List<String> result = new ArrayList<>();
+        int depth = 0;
+        int start = 1;
+        for (int i = 1; i < list.length() - 1; ++i) {
+            char c = list.charAt(i);
+            if (c == '[' || c == '{' || c == '(' || c == '<') {
+                ++depth;
+            } else if (c == ']' || c == '}' || c == ')' || c == '>') {
+                --depth;
+            } else if (depth == 0 && list.startsWith(", ", i)) {
+                result.add(list.substring(start, i));
+                start = i + 2;
+            }
+        }
+        if (start < list.length() - 1) {
+            result.add(list.substring(start, list.length() - 1));
+        }
+        return result;
+    }
+
+    /**
+     * Derives the PFG edges of the recorded methods from their statements,
+     * the recorded points-to sets of the bases and receivers, and the
+     * contexts of the callees selected by given selector.
+     */
+    private void deriveEdges(ContextSelector selector) {
+        Set<Pair<Context, JMethod>> csMethods = new LinkedHashSet<>();
+        vars.forEach(v -> csMethods.add(
+                new Pair<>(v.getContext(), v.getVar().getMethod())));
+        for (Pair<Context, JMethod> csMethod : csMethods) {
+            Context context = csMethod.first();
+            for (Stmt stmt : csMethod.second().getIR()) {
+                if (stmt instanceof Copy copy) {
+                    addEdge(var(context, copy.getRValue()),
+                            var(context, copy.getLValue()));
+                } else if (stmt instanceof LoadField load) {
+                    JField field = load.getFieldRef().resolve();
+                    CSVar lhs = var(context, load.getLValue());
+                    if (load.isStatic()) {
+                        addEdge(csManager.getStaticField(field), lhs);
+                    } else {
+                        Var base = ((InstanceFieldAccess) load.getFieldAccess()).getBase();
+                        for (CSObj obj : pointsTo(context, base)) {
+                            addEdge(csManager.getInstanceField(obj, field), lhs);
+                        }
+                    }
+                } else if (stmt instanceof StoreField store) {
+                    JField field = store.getFieldRef().resolve();
+                    CSVar rhs = var(context, store.getRValue());
+                    if (store.isStatic()) {
+                        addEdge(rhs, csManager.getStaticField(field));
+                    } else {
+                        Var base = ((InstanceFieldAccess) store.getFieldAccess()).getBase();
+                        for (CSObj obj : pointsTo(context, base)) {
+                            addEdge(rhs, csManager.getInstanceField(obj, field));
+                        }
+                    }
+                } else if (stmt instanceof LoadArray load) {
+                    CSVar lhs = var(context, load.getLValue());
+                    for (CSObj array : pointsTo(context, load.getArrayAccess().getBase())) {
+                        addEdge(csManager.getArrayIndex(array), lhs);
+                    }
+                } else if (stmt instanceof StoreArray store) {
+                    CSVar rhs = var(context, store.getRValue());
+                    for (CSObj array : pointsTo(context, store.getArrayAccess().getBase())) {
+                        addEdge(rhs, csManager.getArrayIndex(array));
+                    }
+                } else if (stmt instanceof Invoke invoke && !invoke.isDynamic()) {
+                    CSCallSite callSite = csManager.getCSCallSite(context, invoke);
+                    if (invoke.isStatic()) {
+                        JMethod callee = DispatchTable.resolveCallee(null, invoke);
+                        if (callee != null) {
+                            addCallEdges(callSite, callee,
+                                    selector.selectContext(callSite, callee));
+                        }
+                    } else {
+                        Var base = ((InvokeInstanceExp) invoke.getInvokeExp()).getBase();
+                        for (CSObj recv : pointsTo(context, base)) {
+                            if (mocks.containsValue(recv.getObject())) {
+                                continue;
+                            }
+                            JMethod callee = DispatchTable.resolveCallee(
+                                    recv.getObject().getType(), invoke);
+                            if (callee != null) {
+                                addCallEdges(callSite, callee,
+                                        selector.selectContext(callSite, recv, callee));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void addCallEdges(CSCallSite callSite, JMethod callee, Context calleeContext) {
+        if (callee.isAbstract() || callee.isNative()) {
+            return;
+        }
+        Invoke invoke = callSite.getCallSite();
+        Context context = callSite.getContext();
+        IR ir = callee.getIR();
+        List<Var> args = invoke.getInvokeExp().getArgs();
+        for (int i = 0; i < args.size(); ++i) {
+            addEdge(var(context, args.get(i)), var(calleeContext, ir.getParam(i)));
+        }
+        Var result = invoke.getResult();
+        if (result != null) {
+            for (Var ret : ir.getReturnVars()) {
+                addEdge(var(calleeContext, ret), var(context, result));
+            }
+        }
+    }
+
+    private CSVar var(Context context, Var var) {
+        return csManager.getCSVar(context, var);
+    }
+
+    private List<CSObj> pointsTo(Context context, Var var) {
+        return varPointsToSets.getOrDefault(var(context, var), List.of());
+    }
+
+    private void addEdge(Pointer source, Pointer target) {
+        edgeSet.add(new Pair<>(source, target));
+    }
+}
@@ -44,7 +44,7 @@ public class CSMethod extends AbstractCSElement {
     /**
      * Call edges to this CS method.
      */
-    private final Set<Edge<CSCallSite, CSMethod>> edges = Sets.newHybridSet();
+    private Set<Edge<CSCallSite, CSMethod>> edges = Sets.newHybridSet();
 
     private final ResultHolder resultHolder = new AbstractResultHolder() {};
 
@@ -68,6 +68,14 @@ public class CSMethod extends AbstractCSElement {
         return Collections.unmodifiableSet(edges);
     }
 
+    /**
+     * Releases the call edges to this CS method, e.g., after the call graph
+     * has been compacted. No edges can be added afterwards.
+     */
+    public void clearEdges() {
+        edges = Set.of();
+    }
+
     public <R> R getResult(String id, Supplier<R> supplier) {
         return resultHolder.getResult(id, supplier);
     }
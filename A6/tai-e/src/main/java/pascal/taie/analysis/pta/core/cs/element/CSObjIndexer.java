@@ -0,0 +1,77 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns dense integer indexes (0, 1, 2, ...) to {@link CSObj}s on demand,
+ * and maps the indexes back to the objects. The index is cached in
+ * each object, so after the first query, both directions are O(1)
+ * and do not involve hashing.
+ * <p>
+ * Each object can only be indexed by one indexer, thus an indexer
+ * should be shared by all points-to sets of the same analysis.
+ */
+public class CSObjIndexer {
+
+    private final List<CSObj> objects = new ArrayList<>();
+
+    /**
+     * @return the index of given object. If the object has not been
+     * indexed, assigns it the next free index.
+     */
+    public int getIndex(CSObj obj) {
+        if (obj.index < 0) {
+            obj.index = objects.size();
+            objects.add(obj);
+        }
+        return obj.index;
+    }
+
+    /**
+     * @return the index of given object, or -1 if the object has not been
+     * indexed by this indexer. Unlike {@link #getIndex(CSObj)}, this method
+     * never assigns an index.
+     */
+    public int findIndex(CSObj obj) {
+        int index = obj.index;
+        return index >= 0 && index < objects.size() &&
+                objects.get(index) == obj ? index : -1;
+    }
+
+    /**
+     * @return the object of given index.
+     */
+    public CSObj getObject(int index) {
+        return objects.get(index);
+    }
+
+    /**
+     * @return the number of indexed objects.
+     */
+    public int size() {
+        return objects.size();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.config.AnalysisOptions;
+
+import javax.annotation.Nullable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+
+/**
+ * Time and heap budget of pointer analysis, given by options
+ * "time-budget" (in seconds) and "heap-budget" (in MB).
+ */
+class Budget {
+
+    private final long timeBudget;
+
+    private final long heapBudget;
+
+    private final long startTime = System.nanoTime();
+
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory
+            .getMemoryPoolMXBeans()
+            .stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+    private Budget(long timeBudget, long heapBudget) {
+        this.timeBudget = timeBudget;
+        this.heapBudget = heapBudget;
+    }
+
+    /**
+     * @return the budget given by the options, or null if neither
+     * budget is given. The time budget starts from this call.
+     */
+    static @Nullable Budget of(AnalysisOptions options) {
+        Object time = options.get("time-budget");
+        Object heap = options.get("heap-budget");
+        if (time == null && heap == null) {
+            return null;
+        }
+        return new Budget(
+                time != null ? options.getInt("time-budget") * 1_000_000_000L : Long.MAX_VALUE,
+                heap != null ? options.getInt("heap-budget") * 1024L * 1024L : Long.MAX_VALUE);
+    }
+
+    /**
+     * @return the elapsed time in nanoseconds.
+     */
+    long getElapsedTime() {
+        return System.nanoTime() - startTime;
+    }
+
+    /**
+     * @return the heap memory in bytes which was still used after the
+     * last garbage collection of each heap pool. Unlike the current usage,
+     * it does not count the garbage which is not collected yet.
+     */
+    long getUsedHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (usage != null) {
+                used += usage.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * @return true if the elapsed time or the used heap memory
+     * exceeds this budget, otherwise false.
+     */
+    boolean isExceeded() {
+        return getElapsedTime() > timeBudget ||
+                (heapBudget != Long.MAX_VALUE && getUsedHeap() > heapBudget);
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable context-sensitive call graph in compressed sparse row (CSR)
+ * form, compacted from the call graph built by the solver.
+ * <p>
+ * The reachable methods and call sites are numbered, the call sites of
+ * each method and the edges of each call site are contiguous ranges of
+ * arrays, and the incoming edges of each method are a range of edge ids.
+ * The edges are not stored as {@link Edge} objects, but are re-created
+ * when queried. As in {@link pascal.taie.analysis.pta.core.cs.CSCallGraph},
+ * the call sites are numbered only in reachable methods.
+ */
+final class CompactCallGraph implements CallGraph<CSCallSite, CSMethod> {
+
+    private final CSMethod[] methods;
+
+    private final Map<CSMethod, Integer> methodIds;
+
+    private final int[] entries;
+
+    private final CSCallSite[] callSites;
+
+    private final Map<CSCallSite, Integer> callSiteIds;
+
+    /**
+     * The call sites of method i are callSites[callSiteStart[i]..callSiteStart[i + 1]).
+     */
+    private final int[] callSiteStart;
+
+    /**
+     * The edges of call site i are edge ids edgeStart[i]..edgeStart[i + 1].
+     */
+    private final int[] edgeStart;
+
+    private final int[] edgeCallSites;
+
+    private final int[] edgeCallees;
+
+    private final CallKind[] edgeKinds;
+
+    /**
+     * The incoming edges of method i are inEdges[inStart[i]..inStart[i + 1]).
+     */
+    private final int[] inStart;
+
+    private final int[] inEdges;
+
+    /**
+     * Compacts given call graph. The edges stored in the call sites
+     * and methods of the call graph are released.
+     */
+    CompactCallGraph(CallGraph<CSCallSite, CSMethod> callGraph) {
+        methods = callGraph.reachableMethods().toArray(CSMethod[]::new);
+        methodIds = Maps.newMap(methods.length);
+        for (int i = 0; i < methods.length; ++i) {
+            methodIds.put(methods[i], i);
+        }
+        entries = callGraph.entryMethods().mapToInt(methodIds::get).toArray();
+        callSiteStart = new int[methods.length + 1];
+        for (int i = 0; i < methods.length; ++i) {
+            callSiteStart[i + 1] = callSiteStart[i] +
+                    callGraph.getCallSitesIn(methods[i]).size();
+        }
+        callSites = new CSCallSite[callSiteStart[methods.length]];
+        callSiteIds = Maps.newMap(callSites.length);
+        int nextCallSite = 0;
+        for (CSMethod method : methods) {
+            for (CSCallSite callSite : callGraph.getCallSitesIn(method)) {
+                callSiteIds.put(callSite, nextCallSite);
+                callSites[nextCallSite++] = callSite;
+            }
+        }
+        edgeStart = new int[callSites.length + 1];
+        for (int i = 0; i < callSites.length; ++i) {
+            edgeStart[i + 1] = edgeStart[i] +
+                    (int) callGraph.edgesOutOf(callSites[i]).count();
+        }
+        int edgeCount = edgeStart[callSites.length];
+        edgeCallSites = new int[edgeCount];
+        edgeCallees = new int[edgeCount];
+        edgeKinds = new CallKind[edgeCount];
+        int[] inDegrees = new int[methods.length];
+        int nextEdge = 0;
+        for (int i = 0; i < callSites.length; ++i) {
+            for (Edge<CSCallSite, CSMethod> edge : callGraph.edgesOutOf(callSites[i]).toList()) {
+                int callee = methodIds.get(edge.getCallee());
+                edgeCallSites[nextEdge] = i;
+                edgeCallees[nextEdge] = callee;
+                edgeKinds[nextEdge] = edge.getKind();
+                ++inDegrees[callee];
+                ++nextEdge;
+            }
+        }
+        inStart = new int[methods.length + 1];
+        for (int i = 0; i < methods.length; ++i) {
+            inStart[i + 1] = inStart[i] + inDegrees[i];
+        }
+        inEdges = new int[edgeCount];
+        int[] nextIn = Arrays.copyOf(inStart, methods.length);
+        for (int e = 0; e < edgeCount; ++e) {
+            inEdges[nextIn[edgeCallees[e]]++] = e;
+        }
+        for (CSCallSite callSite : callSites) {
+            callSite.clearEdges();
+        }
+        for (CSMethod method : methods) {
+            method.clearEdges();
+        }
+    }
+
+    private Edge<CSCallSite, CSMethod> getEdge(int e) {
+        return new Edge<>(edgeKinds[e], callSites[edgeCallSites[e]], methods[edgeCallees[e]]);
+    }
+
+    private IntStream edgeIdsOutOf(CSCallSite callSite) {
+        Integer id = callSiteIds.get(callSite);
+        return id == null ? IntStream.empty() :
+                IntStream.range(edgeStart[id], edgeStart[id + 1]);
+    }
+
+    private IntStream edgeIdsInTo(CSMethod method) {
+        Integer id = methodIds.get(method);
+        return id == null ? IntStream.empty() :
+                Arrays.stream(inEdges, inStart[id], inStart[id + 1]);
+    }
+
+    private static <T> Set<T> toSet(Stream<T> stream) {
+        Set<T> set = Sets.newHybridOrderedSet();
+        stream.forEach(set::add);
+        return Collections.unmodifiableSet(set);
+    }
+
+    @Override
+    public Set<CSCallSite> getCallersOf(CSMethod callee) {
+        return toSet(edgeIdsInTo(callee).mapToObj(e -> callSites[edgeCallSites[e]]));
+    }
+
+    @Override
+    public Set<CSMethod> getCalleesOf(CSCallSite callSite) {
+        return toSet(edgeIdsOutOf(callSite).mapToObj(e -> methods[edgeCallees[e]]));
+    }
+
+    @Override
+    public Set<CSMethod> getCalleesOfM(CSMethod caller) {
+        return toSet(callSitesIn(caller).flatMap(this::edgesOutOf).map(Edge::getCallee));
+    }
+
+    @Override
+    public CSMethod getContainerOf(CSCallSite callSite) {
+        return callSite.getContainer();
+    }
+
+    @Override
+    public Set<CSCallSite> getCallSitesIn(CSMethod method) {
+        Integer id = methodIds.get(method);
+        return id == null ? Set.of() : toSet(
+                Arrays.stream(callSites, callSiteStart[id], callSiteStart[id + 1]));
+    }
+
+    @Override
+    public Stream<CSCallSite> callSitesIn(CSMethod method) {
+        Integer id = methodIds.get(method);
+        return id == null ? Stream.empty() :
+                Arrays.stream(callSites, callSiteStart[id], callSiteStart[id + 1]);
+    }
+
+    @Override
+    public Stream<Edge<CSCallSite, CSMethod>> edgesOutOf(CSCallSite callSite) {
+        return edgeIdsOutOf(callSite).mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<CSCallSite, CSMethod>> edgesInTo(CSMethod method) {
+        return edgeIdsInTo(method).mapToObj(this::getEdge);
+    }
+
+    @Override
+    public Stream<Edge<CSCallSite, CSMethod>> edges() {
+        return IntStream.range(0, edgeCallees.length).mapToObj(this::getEdge);
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return edgeCallees.length;
+    }
+
+    @Override
+    public Stream<CSMethod> entryMethods() {
+        return Arrays.stream(entries).mapToObj(i -> methods[i]);
+    }
+
+    @Override
+    public Stream<CSMethod> reachableMethods() {
+        return Arrays.stream(methods);
+    }
+
+    @Override
+    public int getNumberOfMethods() {
+        return methods.length;
+    }
+
+    @Override
+    public boolean contains(CSMethod method) {
+        return methodIds.containsKey(method);
+    }
+
+    // Implementation for Graph interface.
+
+    @Override
+    public boolean hasNode(CSMethod node) {
+        return contains(node);
+    }
+
+    @Override
+    public boolean hasEdge(CSMethod source, CSMethod target) {
+        return getSuccsOf(source).contains(target);
+    }
+
+    @Override
+    public Set<CSMethod> getPredsOf(CSMethod node) {
+        return toSet(edgeIdsInTo(node).mapToObj(e -> callSites[edgeCallSites[e]].getContainer()));
+    }
+
+    @Override
+    public Set<CSMethod> getSuccsOf(CSMethod node) {
+        return getCalleesOfM(node);
+    }
+
+    @Override
+    public Set<CSMethod> getNodes() {
+        return Collections.unmodifiableSet(methodIds.keySet());
+    }
+
+    @Override
+    public boolean isRelevant(Stmt stmt) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<CSMethod> getResult(Stmt stmt) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.MappedPointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AbstractResultHolder;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * {@link PointerAnalysisResult} frozen into compressed sparse row (CSR)
+ * arrays after solving, so that the structures of the solver can be
+ * released while later analyses run.
+ * <p>
+ * The points-to sets of all pointers are stored, as sorted ids of
+ * context-sensitive objects, in one buffer outside the Java heap, and
+ * each pointer is given a {@link MappedPointsToSet} view of its set.
+ * Pointers sharing a set (e.g., the pointers of a collapsed cycle) share
+ * the view. The context-insensitive points-to sets of the variables are
+ * precomputed as ranges of object ids, the context-sensitive variables
+ * are grouped by their variables and the instance fields by their base
+ * objects, and the call graph is compacted into a {@link CompactCallGraph}.
+ */
+final class CompactPointsToResult extends AbstractResultHolder
+        implements PointerAnalysisResult {
+
+    /**
+     * Context-sensitive objects indexed by their ids in the points-to sets.
+     */
+    private final CSObj[] csObjs;
+
+    private final ToIntFunction<CSObj> csObjIdOf;
+
+    /**
+     * Abstract objects, indexed by their ids in {@link #varObjs}.
+     */
+    private final Obj[] objs;
+
+    private final Map<Obj, Integer> objIds;
+
+    private final Var[] vars;
+
+    private final Map<Var, Integer> varIds;
+
+    /**
+     * The context-sensitive variables of variable i are
+     * csVars[csVarStart[i]..csVarStart[i + 1]).
+     */
+    private final CSVar[] csVars;
+
+    private final int[] csVarStart;
+
+    /**
+     * The context-insensitive points-to set of variable i is the
+     * sorted object ids varObjs[varObjStart[i]..varObjStart[i + 1]).
+     */
+    private final int[] varObjStart;
+
+    private final int[] varObjs;
+
+    private final Map<JField, StaticField> staticFields;
+
+    /**
+     * The instance fields of the object of id i are
+     * instanceFields[fieldStart[i]..fieldStart[i + 1]).
+     */
+    private final InstanceField[] instanceFields;
+
+    private final int[] fieldStart;
+
+    private final ArrayIndex[] arrayIndexes;
+
+    private final CompactCallGraph csCallGraph;
+
+    /**
+     * Context-insensitive call graph, computed on the first query.
+     */
+    private CallGraph<Invoke, JMethod> callGraph;
+
+    /**
+     * Number of distinct points-to sets in the buffer.
+     */
+    private final int distinctSets;
+
+    /**
+     * Size of the buffer of points-to sets in bytes.
+     */
+    private final int bufferSize;
+
+    private CompactPointsToResult(CSManager csManager,
+                                  CallGraph<CSCallSite, CSMethod> callGraph,
+                                  CSObjIndexer objIndexer, long bufferSize) {
+        // number objects
+        csManager.getObjects().forEach(objIndexer::getIndex);
+        csObjs = new CSObj[objIndexer.size()];
+        for (int i = 0; i < csObjs.length; ++i) {
+            csObjs[i] = objIndexer.getObject(i);
+        }
+        csObjIdOf = obj -> {
+            int id = objIndexer.getIndex(obj);
+            return id < csObjs.length && csObjs[id] == obj ? id : -1;
+        };
+        objIds = Maps.newMap();
+        List<Obj> objList = new ArrayList<>();
+        for (CSObj csObj : csObjs) {
+            objIds.computeIfAbsent(csObj.getObject(), o -> {
+                objList.add(o);
+                return objList.size() - 1;
+            });
+        }
+        objs = objList.toArray(new Obj[0]);
+        // freeze points-to sets
+        this.bufferSize = (int) bufferSize;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(this.bufferSize);
+        buffer.putInt(0); // the empty set
+        MappedPointsToSet empty = new MappedPointsToSet(buffer, 0, csObjs, csObjIdOf);
+        Map<PointsToSet, MappedPointsToSet> frozen = new IdentityHashMap<>();
+        allPointers(csManager).forEach(pointer -> {
+            PointsToSet pts = pointer.getPointsToSet();
+            if (pts == null || pts.isEmpty()) {
+                pointer.setPointsToSet(empty);
+            } else {
+                pointer.setPointsToSet(frozen.computeIfAbsent(pts, unused -> {
+                    int offset = buffer.position();
+                    int[] ids = pts.objects().mapToInt(csObjIdOf).sorted().toArray();
+                    buffer.putInt(ids.length);
+                    for (int id : ids) {
+                        buffer.putInt(id);
+                    }
+                    return new MappedPointsToSet(buffer, offset, csObjs, csObjIdOf);
+                }));
+            }
+        });
+        distinctSets = frozen.size() + 1;
+        // group context-sensitive variables by variables
+        vars = csManager.getVars().toArray(new Var[0]);
+        varIds = Maps.newMap(vars.length);
+        for (int i = 0; i < vars.length; ++i) {
+            varIds.put(vars[i], i);
+        }
+        csVarStart = new int[vars.length + 1];
+        varObjStart = new int[vars.length + 1];
+        List<CSVar> csVarList = new ArrayList<>();
+        List<int[]> varObjList = new ArrayList<>(vars.length);
+        for (int i = 0; i < vars.length; ++i) {
+            Collection<CSVar> varCSVars = csManager.getCSVarsOf(vars[i]);
+            csVarList.addAll(varCSVars);
+            csVarStart[i + 1] = csVarList.size();
+            int[] ids = varCSVars.stream()
+                    .flatMap(csVar -> csVar.getPointsToSet().objects())
+                    .mapToInt(csObj -> objIds.get(csObj.getObject()))
+                    .distinct()
+                    .sorted()
+                    .toArray();
+            varObjList.add(ids);
+            varObjStart[i + 1] = varObjStart[i] + ids.length;
+        }
+        csVars = csVarList.toArray(new CSVar[0]);
+        varObjs = new int[varObjStart[vars.length]];
+        for (int i = 0; i < vars.length; ++i) {
+            int[] ids = varObjList.get(i);
+            System.arraycopy(ids, 0, varObjs, varObjStart[i], ids.length);
+        }
+        // group instance fields by base objects
+        staticFields = Maps.newMap(csManager.getStaticFields().size());
+        csManager.getStaticFields().forEach(f -> staticFields.put(f.getField(), f));
+        Collection<InstanceField> fields = csManager.getInstanceFields();
+        fieldStart = new int[csObjs.length + 1];
+        for (InstanceField field : fields) {
+            ++fieldStart[csObjIdOf.applyAsInt(field.getBase()) + 1];
+        }
+        for (int i = 0; i < csObjs.length; ++i) {
+            fieldStart[i + 1] += fieldStart[i];
+        }
+        instanceFields = new InstanceField[fields.size()];
+        int[] next = Arrays.copyOf(fieldStart, csObjs.length);
+        for (InstanceField field : fields) {
+            instanceFields[next[csObjIdOf.applyAsInt(field.getBase())]++] = field;
+        }
+        arrayIndexes = csManager.getArrayIndexes().toArray(new ArrayIndex[0]);
+        csCallGraph = new CompactCallGraph(callGraph);
+    }
+
+    /**
+     * Compacts the result of the solver given by its CSManager and
+     * call graph. The points-to sets of the pointers of the CSManager
+     * are replaced by read-only views of the compacted sets.
+     *
+     * @param objIndexer the indexer of the context-sensitive objects
+     *                   of the solver.
+     * @return the compacted result, or null if the points-to sets are too
+     * large to be stored in one buffer.
+     */
+    static @Nullable CompactPointsToResult compact(
+            CSManager csManager, CallGraph<CSCallSite, CSMethod> callGraph,
+            CSObjIndexer objIndexer) {
+        Set<PointsToSet> counted = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bufferSize = Integer.BYTES;
+        for (Pointer pointer : (Iterable<Pointer>) allPointers(csManager)::iterator) {
+            PointsToSet pts = pointer.getPointsToSet();
+            if (pts != null && !pts.isEmpty() && counted.add(pts)) {
+                bufferSize += (long) Integer.BYTES * (pts.size() + 1);
+            }
+        }
+        if (bufferSize > Integer.MAX_VALUE) {
+            return null;
+        }
+        return new CompactPointsToResult(csManager, callGraph, objIndexer, bufferSize);
+    }
+
+    private static Stream<Pointer> allPointers(CSManager csManager) {
+        return Stream.<Collection<? extends Pointer>>of(
+                        csManager.getCSVars(), csManager.getStaticFields(),
+                        csManager.getInstanceFields(), csManager.getArrayIndexes())
+                .flatMap(Collection::stream);
+    }
+
+    /**
+     * @return the number of distinct points-to sets of this result.
+     */
+    int getNumberOfDistinctSets() {
+        return distinctSets;
+    }
+
+    /**
+     * @return the size in bytes of the buffer of the points-to sets.
+     */
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Collections.unmodifiableList(Arrays.asList(csVars));
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableList(Arrays.asList(vars));
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Collections.unmodifiableList(Arrays.asList(instanceFields));
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableList(Arrays.asList(arrayIndexes));
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<CSObj> getCSObjects() {
+        return Collections.unmodifiableList(Arrays.asList(csObjs));
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return Collections.unmodifiableList(Arrays.asList(objs));
+    }
+
+    @Override
+    public Set<CSObj> getPointsToSet(CSVar var) {
+        return var.getPointsToSet().getObjects();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        Integer id = varIds.get(var);
+        return id == null ? Set.of() :
+                new ObjSet(varObjStart[id], varObjStart[id + 1]);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        Integer id = varIds.get(base);
+        if (id == null) {
+            return Set.of();
+        }
+        Set<Obj> pts = Sets.newHybridSet();
+        for (int i = csVarStart[id]; i < csVarStart[id + 1]; ++i) {
+            csVars[i].getPointsToSet().objects().forEach(csObj -> {
+                InstanceField instanceField = getInstanceField(csObj, field);
+                if (instanceField != null) {
+                    instanceField.getPointsToSet().objects()
+                            .map(CSObj::getObject)
+                            .forEach(pts::add);
+                }
+            });
+        }
+        return Collections.unmodifiableSet(pts);
+    }
+
+    private @Nullable InstanceField getInstanceField(CSObj base, JField field) {
+        int id = csObjIdOf.applyAsInt(base);
+        if (id >= 0) {
+            for (int i = fieldStart[id]; i < fieldStart[id + 1]; ++i) {
+                if (instanceFields[i].getField().equals(field)) {
+                    return instanceFields[i];
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        StaticField staticField = staticFields.get(field);
+        if (staticField == null) {
+            return Set.of();
+        }
+        Set<Obj> pts = Sets.newHybridSet();
+        staticField.getPointsToSet().objects()
+                .map(CSObj::getObject)
+                .forEach(pts::add);
+        return Collections.unmodifiableSet(pts);
+    }
+
+    @Override
+    public CallGraph<CSCallSite, CSMethod> getCSCallGraph() {
+        return csCallGraph;
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        if (callGraph == null) {
+            DefaultCallGraph ciCallGraph = new DefaultCallGraph();
+            csCallGraph.entryMethods()
+                    .map(CSMethod::getMethod)
+                    .forEach(ciCallGraph::addEntryMethod);
+            csCallGraph.reachableMethods()
+                    .map(CSMethod::getMethod)
+                    .forEach(ciCallGraph::addReachableMethod);
+            csCallGraph.edges().forEach(edge -> ciCallGraph.addEdge(new Edge<>(
+                    edge.getKind(), edge.getCallSite().getCallSite(),
+                    edge.getCallee().getMethod())));
+            callGraph = ciCallGraph;
+        }
+        return callGraph;
+    }
+
+    /**
+     * Context-insensitive points-to set which is a range of {@link #varObjs}.
+     */
+    private class ObjSet extends AbstractSet<Obj> {
+
+        private final int from;
+
+        private final int to;
+
+        private ObjSet(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = o instanceof Obj obj ? objIds.get(obj) : null;
+            return id != null && Arrays.binarySearch(varObjs, from, to, id) >= 0;
+        }
+
+        @Override
+        public Iterator<Obj> iterator() {
+            return new Iterator<>() {
+
+                private int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public Obj next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return objs[varObjs[i++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorator of {@link ContextSelector} which reduces context sensitivity
+ * when the analysis exceeds its {@link Budget}, so that the analysis
+ * can still finish. Any choice of contexts yields a sound result, thus
+ * degradation only costs precision.
+ * <p>
+ * The budget is checked every {@link #CHECK_INTERVAL} ticks, i.e.,
+ * context selections and work-list entries processed by the solver
+ * (see {@link #tick()}), starting from the first one. Each time it is
+ * found exceeded, the selector degrades one more level:
+ * <ol>
+ *     <li>The methods reached for the first time are analyzed context
+ *     insensitively, and the contexts of the methods with the most
+ *     selections so far (the worst offenders) are shortened by
+ *     one element.</li>
+ *     <li>All methods are analyzed context insensitively from now on.</li>
+ * </ol>
+ */
+class DegradingContextSelector implements ContextSelector {
+
+    private static final Logger logger = LogManager.getLogger(DegradingContextSelector.class);
+
+    private static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * Minimum time between two degradations, in nanoseconds, so that
+     * the previous degradation has a chance to take effect.
+     */
+    private static final long DEGRADE_DELAY = 1_000_000_000L;
+
+    /**
+     * Fraction of the reached methods whose contexts are shortened.
+     */
+    private static final double OFFENDER_RATIO = 0.1;
+
+    private static final int MAX_LEVEL = 2;
+
+    private final ContextSelector selector;
+
+    private final Budget budget;
+
+    /**
+     * Number of context selections for each callee/allocating method.
+     */
+    private final Map<JMethod, AtomicInteger> selections = Maps.newConcurrentMap();
+
+    private final AtomicLong ticks = new AtomicLong();
+
+    private volatile int level = 0;
+
+    private long lastDegradeTime;
+
+    /**
+     * Methods whose contexts are shortened.
+     */
+    private volatile Set<JMethod> shortened = Set.of();
+
+    /**
+     * Methods which are analyzed context insensitively.
+     */
+    private final Set<JMethod> insensitive = Sets.newConcurrentSet();
+
+    DegradingContextSelector(ContextSelector selector, Budget budget) {
+        this.selector = selector;
+        this.budget = budget;
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return selector.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        return degrade(callee, selector.selectContext(callSite, callee));
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        return degrade(callee, selector.selectContext(callSite, recv, callee));
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        return degrade(method.getMethod(), selector.selectHeapContext(method, obj));
+    }
+
+    /**
+     * Counts one step of the analysis, and checks the budget
+     * every {@link #CHECK_INTERVAL} steps.
+     */
+    void tick() {
+        if (ticks.getAndIncrement() % CHECK_INTERVAL == 0) {
+            checkBudget();
+        }
+    }
+
+    private Context degrade(JMethod method, Context context) {
+        tick();
+        AtomicInteger count = selections.get(method);
+        if (count == null) {
+            if (level > 0) {
+                insensitive.add(method);
+            }
+            count = selections.computeIfAbsent(method, m -> new AtomicInteger());
+        }
+        count.incrementAndGet();
+        if (level >= MAX_LEVEL || insensitive.contains(method)) {
+            return getEmptyContext();
+        }
+        if (shortened.contains(method)) {
+            return ListContext.truncate(context, context.getLength() - 1);
+        }
+        return context;
+    }
+
+    private synchronized void checkBudget() {
+        if (level >= MAX_LEVEL || !budget.isExceeded()) {
+            return;
+        }
+        long now = budget.getElapsedTime();
+        if (level > 0 && now - lastDegradeTime < DEGRADE_DELAY) {
+            return;
+        }
+        lastDegradeTime = now;
+        ++level;
+        if (level == 1) {
+            // snapshot the counts, as they may change during sorting
+            Map<JMethod, Integer> counts = Maps.newMap(selections.size());
+            selections.forEach((m, count) -> counts.put(m, count.get()));
+            List<JMethod> methods = counts.keySet()
+                    .stream()
+                    .sorted(Comparator.comparingInt(counts::get).reversed())
+                    .toList();
+            int offenders = (int) Math.ceil(methods.size() * OFFENDER_RATIO);
+            shortened = Set.copyOf(methods.subList(0, offenders));
+        }
+        logger.info("Budget exceeded after {} ms with {} MB heap used, " +
+                        "degrading context sensitivity to level {}",
+                now / 1_000_000, budget.getUsedHeap() / (1024 * 1024), level);
+    }
+
+    /**
+     * Logs the degraded methods.
+     */
+    void logDegradedMethods() {
+        if (level == 0) {
+            return;
+        }
+        logger.info("Context sensitivity degraded to level {}: " +
+                        "{} methods shortened, {} methods context-insensitive{}",
+                level, shortened.size(), insensitive.size(),
+                level >= MAX_LEVEL ? " (and all methods reached afterwards)" : "");
+        shortened.forEach(m -> logger.info("Shortened contexts: {}", m));
+        insensitive.forEach(m -> logger.info("Context-insensitive: {}", m));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Work list for solving pointer analysis with multiple threads.
+ * <p>
+ * Pointers are partitioned among the worker threads by their hash codes.
+ * Each worker polls entries only from its own partition, thus a pointer
+ * is always propagated by the same thread, while any thread can add
+ * entries to any partition. The work list tracks the entries which
+ * have been added but not finished, and the workers stop when no such
+ * entry remains.
+ */
+class ParallelWorkList implements PropagationQueue {
+
+    /**
+     * Time for which an idle worker waits before polling again.
+     */
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final WorkList[] partitions;
+
+    /**
+     * Number of entries which have been queued but not finished.
+     */
+    private final AtomicLong unfinished = new AtomicLong();
+
+    private volatile boolean aborted = false;
+
+    ParallelWorkList(int workers) {
+        partitions = new WorkList[workers];
+        for (int i = 0; i < workers; ++i) {
+            partitions[i] = new WorkList();
+        }
+    }
+
+    @Override
+    public void setTypeFilter(TypeFilter typeFilter) {
+        for (WorkList partition : partitions) {
+            partition.setTypeFilter(typeFilter);
+        }
+    }
+
+    @Override
+    public boolean addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        WorkList partition = getPartition(pointer);
+        boolean added;
+        synchronized (partition) {
+            added = partition.addEntry(pointer, pointsToSet);
+            if (added) {
+                unfinished.incrementAndGet();
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Retrieves and removes an entry from the partition of given worker.
+     * If the partition is empty, waits until an entry is available.
+     * After processing the entry, the worker must call {@link #finishEntry()}.
+     *
+     * @return the entry, or null if all entries have been finished
+     * or the work list has been aborted.
+     */
+    WorkList.Entry pollEntry(int worker) {
+        WorkList partition = partitions[worker];
+        while (!aborted) {
+            WorkList.Entry entry;
+            synchronized (partition) {
+                entry = partition.pollEntry();
+            }
+            if (entry != null) {
+                return entry;
+            }
+            if (unfinished.get() == 0) {
+                return null;
+            }
+            LockSupport.parkNanos(IDLE_WAIT_NANOS);
+        }
+        return null;
+    }
+
+    /**
+     * Marks an entry returned by {@link #pollEntry(int)} as finished.
+     */
+    void finishEntry() {
+        unfinished.decrementAndGet();
+    }
+
+    /**
+     * Stops all workers, e.g., when one of them has failed.
+     */
+    void abort() {
+        aborted = true;
+    }
+
+    @Override
+    public long getMergedEntries() {
+        long merged = 0;
+        for (WorkList partition : partitions) {
+            merged += partition.getMergedEntries();
+        }
+        return merged;
+    }
+
+    @Override
+    public long getPolledEntries() {
+        long polled = 0;
+        for (WorkList partition : partitions) {
+            polled += partition.getPolledEntries();
+        }
+        return polled;
+    }
+
+    private WorkList getPartition(Pointer pointer) {
+        return partitions[Math.floorMod(pointer.hashCode(), partitions.length)];
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.selector.CISelector;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveContextSelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Context-insensitive pre-analysis whose result bounds and pre-sizes
+ * the context-sensitive analysis, enabled by option "ci-pre-analysis".
+ * <p>
+ * The context-sensitive points-to set of a variable, projected to
+ * abstract objects, is a subset of its context-insensitive points-to set.
+ * Thus the pre-analysis provides:
+ * <ul>
+ *     <li>the target of each call site whose receiver objects all dispatch
+ *     to the same method. The context-sensitive analysis uses it directly
+ *     instead of dispatching each receiver object.</li>
+ *     <li>the number of variables of each reachable method, and the number
+ *     of PFG nodes, to pre-size the tables of the analysis.</li>
+ *     <li>the methods whose variables all point to at most one object
+ *     (singleton methods). If option "skip-singleton-contexts" is true,
+ *     the methods are analyzed context insensitively. As an object may
+ *     still have several heap contexts, this may cost some precision.</li>
+ * </ul>
+ */
+class PreAnalysis {
+
+    private static final Logger logger = LogManager.getLogger(PreAnalysis.class);
+
+    /**
+     * Options that only affect how the solver runs, not its result.
+     * The pre-analysis is always solved sequentially without them,
+     * so that it neither overwrites the metrics of the context-sensitive
+     * analysis nor pays for the solver features it does not need.
+     */
+    private static final Set<String> SOLVER_OPTIONS = Set.of(
+            "metrics", "threads", "collapse-cycles", "work-list-order");
+
+    private final PointerAnalysisResult result;
+
+    private final long time;
+
+    private final Map<Invoke, JMethod> monomorphicTargets = Maps.newMap();
+
+    private final Map<JMethod, Integer> varCounts = Maps.newMap();
+
+    private final Map<JMethod, ContextSelector> singletonMethods = Maps.newMap();
+
+    private final int pfgNodes;
+
+    private final LongAdder devirtualizedCalls = new LongAdder();
+
+    private PreAnalysis(PointerAnalysisResult result, long time, int pfgNodes) {
+        this.result = result;
+        this.time = time;
+        this.pfgNodes = pfgNodes;
+        ContextSelector ciSelector = new CISelector();
+        result.getCallGraph().reachableMethods().forEach(method -> {
+            IR ir = method.getIR();
+            varCounts.put(method, ir.getVars().size());
+            boolean singleton = true;
+            for (Var var : ir.getVars()) {
+                if (result.getPointsToSet(var).size() > 1) {
+                    singleton = false;
+                    break;
+                }
+            }
+            for (Stmt stmt : ir) {
+                if (stmt instanceof New) {
+                    // keeps the heap contexts of the objects allocated in method
+                    singleton = false;
+                } else if (stmt instanceof Invoke invoke) {
+                    JMethod target = getMonomorphicTarget(invoke);
+                    if (target != null) {
+                        monomorphicTargets.put(invoke, target);
+                    }
+                }
+            }
+            if (singleton) {
+                singletonMethods.put(method, ciSelector);
+            }
+        });
+    }
+
+    /**
+     * Runs the pre-analysis with the same options and heap model
+     * as the context-sensitive analysis, except {@link #SOLVER_OPTIONS}.
+     */
+    static PreAnalysis run(AnalysisOptions options) {
+        long start = System.nanoTime();
+        options = new PreAnalysisOptions(options);
+        Solver solver = new Solver(options,
+                new AllocationSiteBasedModel(options), new CISelector());
+        solver.solve();
+        PointerAnalysisResult result = solver.getResult();
+        int pfgNodes = solver.getPointerFlowGraph().getNodes().size();
+        return new PreAnalysis(result, System.nanoTime() - start, pfgNodes);
+    }
+
+    private @Nullable JMethod getMonomorphicTarget(Invoke invoke) {
+        if (invoke.isStatic() || invoke.isDynamic() ||
+                !(invoke.getInvokeExp() instanceof InvokeInstanceExp exp)) {
+            return null;
+        }
+        JMethod target = null;
+        for (Obj obj : result.getPointsToSet(exp.getBase())) {
+            JMethod callee = DispatchTable.resolveCallee(obj.getType(), invoke);
+            if (callee == null || (target != null && target != callee)) {
+                return null;
+            }
+            target = callee;
+        }
+        return target;
+    }
+
+    /**
+     * @return the result of the pre-analysis.
+     */
+    PointerAnalysisResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return the method which all receiver objects of given call site
+     * dispatch to, or null if there is no such method.
+     */
+    @Nullable JMethod resolveCallee(Invoke callSite) {
+        JMethod target = monomorphicTargets.get(callSite);
+        if (target != null) {
+            devirtualizedCalls.increment();
+        }
+        return target;
+    }
+
+    /**
+     * @return the number of variables of each reachable method.
+     */
+    Map<JMethod, Integer> getVarCounts() {
+        return varCounts;
+    }
+
+    int getNumberOfPFGNodes() {
+        return pfgNodes;
+    }
+
+    /**
+     * @return the selector which analyzes the singleton methods
+     * context insensitively, and the other methods by given selector.
+     */
+    ContextSelector skipSingletons(ContextSelector selector) {
+        return new SelectiveContextSelector(singletonMethods, selector);
+    }
+
+    /**
+     * Logs the time of the pre-analysis next to what it saved
+     * the context-sensitive analysis, which took given time.
+     */
+    void logSavings(long mainTime, boolean skipSingletons) {
+        logger.info("CI pre-analysis took {}s, context-sensitive analysis took {}s",
+                String.format("%.2f", time / 1e9), String.format("%.2f", mainTime / 1e9));
+        logger.info("CI pre-analysis devirtualized {} call sites ({} dispatches skipped)," +
+                        " pre-sized {} methods and {} PFG nodes",
+                monomorphicTargets.size(), devirtualizedCalls.sum(),
+                varCounts.size(), pfgNodes);
+        if (skipSingletons) {
+            logger.info("CI pre-analysis found {} singleton methods," +
+                    " analyzed context insensitively", singletonMethods.size());
+        }
+    }
+
+    /**
+     * Given options without {@link #SOLVER_OPTIONS}.
+     */
+    private static class PreAnalysisOptions extends AnalysisOptions {
+
+        private final AnalysisOptions options;
+
+        private PreAnalysisOptions(AnalysisOptions options) {
+            super(Map.of());
+            this.options = options;
+        }
+
+        @Override
+        public Object get(String key) {
+            return SOLVER_OPTIONS.contains(key) ? null : options.get(key);
+        }
+
+        @Override
+        public boolean getBooleanOrDefault(String key, boolean defaultValue) {
+            return SOLVER_OPTIONS.contains(key) ? defaultValue :
+                    options.getBooleanOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public String toString() {
+            return options + " without " + SOLVER_OPTIONS;
+        }
+    }
+}
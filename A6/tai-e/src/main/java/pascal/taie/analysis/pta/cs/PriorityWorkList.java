@@ -0,0 +1,153 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.graph.MergedNode;
+import pascal.taie.util.graph.MergedSCCGraph;
+import pascal.taie.util.graph.TopoSorter;
+
+import javax.annotation.Nullable;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Work list which polls pending pointers by priority, instead of FIFO.
+ * The order is given by option "work-list-order":
+ * <ul>
+ *     <li>fifo (default): the order in which pointers are added,
+ *     see {@link WorkList}.</li>
+ *     <li>lrf: least recently fired first, i.e., the pointer which has
+ *     not been polled for the longest time is polled first.</li>
+ *     <li>topo: topological order of the condensation of the PFG, so that
+ *     the predecessors of a pointer settle before it is propagated.
+ *     The order is recomputed when the number of PFG edges has doubled
+ *     since the last computation. Pointers added to the PFG since then,
+ *     and pointers in the same strongly connected component, are
+ *     ordered by least recently fired.</li>
+ * </ul>
+ */
+class PriorityWorkList extends WorkList {
+
+    /**
+     * Minimum number of PFG edges before the topological order
+     * is computed for the first time.
+     */
+    private static final int MIN_TOPO_EDGES = 64;
+
+    /**
+     * PFG whose topological order prioritizes the pointers,
+     * or null if the order is least recently fired.
+     */
+    private final @Nullable PointerFlowGraph pointerFlowGraph;
+
+    /**
+     * Map from pointer to its index in the topological order.
+     */
+    private Map<Pointer, Integer> topoIndexes = Map.of();
+
+    /**
+     * Map from pointer to the time it was polled last.
+     */
+    private final Map<Pointer, Long> fireTimes = Maps.newMap();
+
+    private long time = 0;
+
+    private int nextTopoEdges = MIN_TOPO_EDGES;
+
+    private int topoSorts = 0;
+
+    private PriorityWorkList(@Nullable PointerFlowGraph pointerFlowGraph) {
+        this.pointerFlowGraph = pointerFlowGraph;
+        reorder(newQueue());
+    }
+
+    /**
+     * @return the work list of given order for solving on given PFG.
+     * @throws ConfigException if the order is unknown.
+     */
+    static WorkList make(@Nullable String order, PointerFlowGraph pointerFlowGraph) {
+        if (order == null || order.equals("fifo")) {
+            return new WorkList();
+        } else if (order.equals("lrf")) {
+            return new PriorityWorkList(null);
+        } else if (order.equals("topo")) {
+            return new PriorityWorkList(pointerFlowGraph);
+        } else {
+            throw new ConfigException("Unknown work-list order: " + order);
+        }
+    }
+
+    private PriorityQueue<Pointer> newQueue() {
+        Comparator<Pointer> byFireTime = Comparator.comparingLong(
+                p -> fireTimes.getOrDefault(p, -1L));
+        return new PriorityQueue<>(Comparator.<Pointer>comparingInt(
+                p -> topoIndexes.getOrDefault(p, Integer.MAX_VALUE))
+                .thenComparing(byFireTime));
+    }
+
+    @Override
+    Entry pollEntry() {
+        if (pointerFlowGraph != null &&
+                pointerFlowGraph.getNumberOfEdges() >= nextTopoEdges) {
+            sortTopologically();
+        }
+        Entry entry = super.pollEntry();
+        if (entry != null) {
+            // the pointer is not pending, thus its priority can change
+            fireTimes.put(entry.pointer(), ++time);
+        }
+        return entry;
+    }
+
+    /**
+     * Recomputes the topological order of the PFG condensation,
+     * and reorders the pending pointers by it.
+     */
+    private void sortTopologically() {
+        List<MergedNode<Pointer>> order = new TopoSorter<>(
+                new MergedSCCGraph<>(pointerFlowGraph)).get();
+        Map<Pointer, Integer> indexes = Maps.newMap(
+                pointerFlowGraph.getNodes().size());
+        for (int i = 0; i < order.size(); ++i) {
+            for (Pointer pointer : order.get(i).getNodes()) {
+                indexes.put(pointer, i);
+            }
+        }
+        topoIndexes = indexes;
+        reorder(newQueue());
+        nextTopoEdges = 2 * pointerFlowGraph.getNumberOfEdges();
+        ++topoSorts;
+    }
+
+    /**
+     * @return the number of times the topological order was computed.
+     */
+    int getTopoSorts() {
+        return topoSorts;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+
+/**
+ * Work list as seen by the solver when it propagates points-to sets.
+ * Implemented by {@link WorkList} for sequential solving, and by
+ * {@link ParallelWorkList} for parallel solving. The two are polled
+ * in different ways, so polling is not part of this interface.
+ */
+interface PropagationQueue {
+
+    /**
+     * Adds an entry to the work list.
+     *
+     * @return true if a new entry is queued, or false if the entry is
+     * merged into the pending entry of the pointer or filtered out.
+     */
+    boolean addEntry(Pointer pointer, PointsToSet pointsToSet);
+
+    /**
+     * Sets the filter of the points-to sets of new entries. Entries whose
+     * points-to sets become empty after filtering are dropped.
+     */
+    void setTypeFilter(TypeFilter typeFilter);
+
+    /**
+     * @return the number of entries which were merged into pending
+     * entries, i.e., the number of queue entries saved by merging.
+     */
+    long getMergedEntries();
+
+    /**
+     * @return the number of entries which were polled, i.e., the number
+     * of propagations of the solver.
+     */
+    long getPolledEntries();
+}
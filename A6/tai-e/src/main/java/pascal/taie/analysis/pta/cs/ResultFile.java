@@ -0,0 +1,523 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.ElementKeys.ObjKey;
+import pascal.taie.analysis.pta.cs.ElementKeys.StmtKey;
+import pascal.taie.analysis.pta.cs.ElementKeys.TypeKey;
+import pascal.taie.analysis.pta.pts.MappedPointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary file of {@link PointerAnalysisResult}.
+ * <p>
+ * The program elements (methods, fields, types, etc.) are stored by
+ * their signatures or names in a string table, and the objects,
+ * contexts and context-sensitive elements are stored in tables which
+ * refer to each other by ids. The points-to sets are stored as sorted
+ * ids of context-sensitive objects. All values are big-endian ints,
+ * except the kinds of objects and context elements, which are bytes.
+ * The layout of the file is:
+ * <pre>
+ * magic version
+ * points-to sets: (size id*)*
+ * strings: count (length UTF-8-bytes)*
+ * objects, contexts, context-sensitive objects, variables,
+ * static fields, instance fields, array indexes,
+ * reachable methods, entry methods, call edges
+ * offset-of-strings
+ * </pre>
+ * The result is read by mapping the file in memory. The tables are
+ * decoded to re-create the context-sensitive elements for the current
+ * world, and the points-to sets of the pointers are
+ * {@link MappedPointsToSet}s which decode the mapped data on access.
+ * The objects and context elements are stored by their keys given by
+ * {@link ElementKeys}, thus the elements which cannot be encoded to
+ * keys cannot be stored.
+ */
+final class ResultFile {
+
+    private static final int MAGIC = 0x54414950; // "TAIP"
+
+    private static final int VERSION = 2;
+
+    private static final byte NEW_OBJ = 0;
+
+    private static final byte STRING_OBJ = 1;
+
+    private static final byte CLASS_OBJ = 2;
+
+    private static final byte OBJ_ELEMENT = 0;
+
+    private static final byte INVOKE_ELEMENT = 1;
+
+    private static final byte TYPE_ELEMENT = 2;
+
+    private ResultFile() {
+    }
+
+    /**
+     * Assigns consecutive ids to elements.
+     */
+    private static class Table<T> {
+
+        private final Map<T, Integer> ids = Maps.newMap();
+
+        private final List<T> elements = new ArrayList<>();
+
+        private int add(T element) {
+            return ids.computeIfAbsent(element, e -> {
+                elements.add(e);
+                return elements.size() - 1;
+            });
+        }
+
+        private int idOf(T element) {
+            Integer id = ids.get(element);
+            if (id == null) {
+                throw new IllegalStateException("No id of " + element);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Writes given result to given file.
+     *
+     * @throws UnsupportedOperationException if the result contains objects
+     *                                       or context elements which cannot be stored
+     */
+    static void write(PointerAnalysisResult result, Path file) throws IOException {
+        new Writer(result).write(file);
+    }
+
+    private static class Writer {
+
+        private final PointerAnalysisResult result;
+
+        private final CallGraph<CSCallSite, CSMethod> callGraph;
+
+        private final Table<String> strings = new Table<>();
+
+        private final ElementKeys.Encoder encoder = new ElementKeys.Encoder();
+
+        private final Table<ObjKey> objs = new Table<>();
+
+        private final Table<Context> contexts = new Table<>();
+
+        private final Table<CSObj> csObjs = new Table<>();
+
+        private final Table<CSMethod> csMethods = new Table<>();
+
+        private final Map<Pointer, Integer> ptsOffsets = Maps.newMap();
+
+        /**
+         * The call sites with callees, and the number of their edges.
+         */
+        private final List<CSCallSite> callSites = new ArrayList<>();
+
+        private int edgeCount = 0;
+
+        private Writer(PointerAnalysisResult result) {
+            this.result = result;
+            this.callGraph = result.getCSCallGraph();
+        }
+
+        private void write(Path file) throws IOException {
+            // collect the objects and contexts, so that their tables
+            // are written before the elements which refer to them
+            result.getCSObjects().forEach(o -> {
+                addContext(o.getContext());
+                objs.add(encoder.encodeObj(o.getObject()));
+                csObjs.add(o);
+            });
+            result.getCSVars().forEach(v -> addContext(v.getContext()));
+            callGraph.reachableMethods().forEach(m -> {
+                addContext(m.getContext());
+                csMethods.add(m);
+            });
+            callGraph.reachableMethods().forEach(m ->
+                    callGraph.getCallSitesIn(m).forEach(cs -> {
+                        int nCallees = callGraph.getCalleesOf(cs).size();
+                        if (nCallees > 0) {
+                            addContext(cs.getContext());
+                            callSites.add(cs);
+                            edgeCount += nCallees;
+                        }
+                    }));
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writePointsToSets(out);
+                ByteArrayOutputStream tables = new ByteArrayOutputStream();
+                writeTables(new DataOutputStream(tables));
+                int stringsOffset = out.size();
+                out.writeInt(strings.elements.size());
+                for (String s : strings.elements) {
+                    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                tables.writeTo(out);
+                out.writeInt(stringsOffset);
+            }
+        }
+
+        private void addContext(Context context) {
+            for (Object element : encoder.encodeContext(context)) {
+                if (element instanceof ObjKey obj) {
+                    objs.add(obj);
+                }
+            }
+            contexts.add(context);
+        }
+
+        private void writePointsToSets(DataOutputStream out) throws IOException {
+            for (Pointer pointer : getPointers()) {
+                PointsToSet pts = pointer.getPointsToSet();
+                if (pts != null && !pts.isEmpty()) {
+                    int[] ids = pts.objects().mapToInt(csObjs::idOf).sorted().toArray();
+                    ptsOffsets.put(pointer, out.size());
+                    out.writeInt(ids.length);
+                    for (int id : ids) {
+                        out.writeInt(id);
+                    }
+                }
+            }
+        }
+
+        private List<Pointer> getPointers() {
+            List<Pointer> pointers = new ArrayList<>(result.getCSVars());
+            pointers.addAll(result.getStaticFields());
+            pointers.addAll(result.getInstanceFields());
+            pointers.addAll(result.getArrayIndexes());
+            return pointers;
+        }
+
+        private void writeTables(DataOutputStream out) throws IOException {
+            out.writeInt(objs.elements.size());
+            for (ObjKey obj : objs.elements) {
+                writeObj(out, obj);
+            }
+            out.writeInt(contexts.elements.size());
+            for (Context context : contexts.elements) {
+                List<Object> elements = encoder.encodeContext(context);
+                out.writeInt(elements.size());
+                for (Object element : elements) {
+                    writeElement(out, element);
+                }
+            }
+            out.writeInt(csObjs.elements.size());
+            for (CSObj csObj : csObjs.elements) {
+                out.writeInt(contexts.idOf(csObj.getContext()));
+                out.writeInt(objs.idOf(encoder.encodeObj(csObj.getObject())));
+            }
+            out.writeInt(result.getCSVars().size());
+            for (CSVar csVar : result.getCSVars()) {
+                out.writeInt(contexts.idOf(csVar.getContext()));
+                out.writeInt(strings.add(csVar.getVar().getMethod().getSignature()));
+                out.writeInt(csVar.getVar().getIndex());
+                writePtsOffset(out, csVar);
+            }
+            out.writeInt(result.getStaticFields().size());
+            for (StaticField field : result.getStaticFields()) {
+                out.writeInt(strings.add(field.getField().getSignature()));
+                writePtsOffset(out, field);
+            }
+            out.writeInt(result.getInstanceFields().size());
+            for (InstanceField field : result.getInstanceFields()) {
+                out.writeInt(csObjs.idOf(field.getBase()));
+                out.writeInt(strings.add(field.getField().getSignature()));
+                writePtsOffset(out, field);
+            }
+            out.writeInt(result.getArrayIndexes().size());
+            for (ArrayIndex array : result.getArrayIndexes()) {
+                out.writeInt(csObjs.idOf(array.getArray()));
+                writePtsOffset(out, array);
+            }
+            out.writeInt(csMethods.elements.size());
+            for (CSMethod csMethod : csMethods.elements) {
+                out.writeInt(contexts.idOf(csMethod.getContext()));
+                out.writeInt(strings.add(csMethod.getMethod().getSignature()));
+            }
+            List<CSMethod> entries = callGraph.entryMethods().toList();
+            out.writeInt(entries.size());
+            for (CSMethod entry : entries) {
+                out.writeInt(csMethods.idOf(entry));
+            }
+            // the edges are written per call site from its callees,
+            // whose kind is determined by the call site
+            out.writeInt(edgeCount);
+            for (CSCallSite csCallSite : callSites) {
+                Invoke callSite = csCallSite.getCallSite();
+                int kind = strings.add(CallGraphs.getCallKind(callSite).name());
+                for (CSMethod callee : callGraph.getCalleesOf(csCallSite)) {
+                    out.writeInt(kind);
+                    out.writeInt(contexts.idOf(csCallSite.getContext()));
+                    writeStmt(out, encoder.encodeStmt(callSite));
+                    out.writeInt(csMethods.idOf(callee));
+                }
+            }
+        }
+
+        private void writePtsOffset(DataOutputStream out, Pointer pointer) throws IOException {
+            out.writeInt(ptsOffsets.getOrDefault(pointer, -1));
+        }
+
+        /**
+         * Writes the key of an object, whose kind is given by
+         * the non-null allocation or literal of the key.
+         */
+        private void writeObj(DataOutputStream out, ObjKey obj) throws IOException {
+            if (obj.allocation() != null) {
+                out.writeByte(NEW_OBJ);
+                writeStmt(out, obj.allocation());
+            } else if (obj.string() != null) {
+                out.writeByte(STRING_OBJ);
+                out.writeInt(strings.add(obj.string()));
+            } else {
+                out.writeByte(CLASS_OBJ);
+                out.writeInt(strings.add(obj.klass()));
+            }
+            out.writeInt(strings.add(obj.type()));
+        }
+
+        /**
+         * Writes the key of a context element, i.e., an object,
+         * a call site or a type.
+         */
+        private void writeElement(DataOutputStream out, Object element) throws IOException {
+            if (element instanceof ObjKey obj) {
+                out.writeByte(OBJ_ELEMENT);
+                out.writeInt(objs.idOf(obj));
+            } else if (element instanceof StmtKey stmt) {
+                out.writeByte(INVOKE_ELEMENT);
+                writeStmt(out, stmt);
+            } else {
+                out.writeByte(TYPE_ELEMENT);
+                out.writeInt(strings.add(((TypeKey) element).name()));
+            }
+        }
+
+        private void writeStmt(DataOutputStream out, StmtKey stmt) throws IOException {
+            out.writeInt(strings.add(stmt.method()));
+            out.writeInt(stmt.index());
+        }
+    }
+
+    /**
+     * Reads the result in given file for the current world.
+     * <p>
+     * Only the points-to sets are decoded lazily from the mapped file.
+     * The objects, contexts, context-sensitive elements and call graph
+     * edges are rebuilt eagerly, as {@link PointerAnalysisResult} exposes
+     * them as collections, so reading costs time and memory linear in
+     * the number of pointers and edges of the result.
+     *
+     * @throws IOException if the file cannot be read or is not a result file
+     */
+    static PointerAnalysisResult read(Path file, HeapModel heapModel) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < 3 * Integer.BYTES ||
+                buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Not a pointer analysis result file: " + file);
+        }
+        return new Reader(buffer, heapModel).read();
+    }
+
+    private static class Reader {
+
+        private final ByteBuffer buffer;
+
+        private final ElementKeys.Decoder decoder;
+
+        private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+        private final CSManager csManager = new MapBasedCSManager();
+
+        private String[] strings;
+
+        private ObjKey[] objKeys;
+
+        private Obj[] objs;
+
+        private Context[] contexts;
+
+        private CSObj[] csObjs;
+
+        private final Map<CSObj, Integer> csObjIds = Maps.newMap();
+
+        private Reader(ByteBuffer buffer, HeapModel heapModel) {
+            this.buffer = buffer;
+            this.decoder = new ElementKeys.Decoder(heapModel);
+        }
+
+        private PointerAnalysisResult read() {
+            ByteBuffer in = buffer.duplicate();
+            in.position(buffer.getInt(buffer.limit() - Integer.BYTES));
+            strings = new String[in.getInt()];
+            for (int i = 0; i < strings.length; ++i) {
+                byte[] bytes = new byte[in.getInt()];
+                in.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            objKeys = new ObjKey[in.getInt()];
+            objs = new Obj[objKeys.length];
+            for (int i = 0; i < objs.length; ++i) {
+                objKeys[i] = readObj(in);
+                objs[i] = decoder.decodeObj(objKeys[i]);
+            }
+            contexts = new Context[in.getInt()];
+            for (int i = 0; i < contexts.length; ++i) {
+                List<Object> elements = new ArrayList<>();
+                for (int j = in.getInt(); j > 0; --j) {
+                    elements.add(readElement(in));
+                }
+                contexts[i] = decoder.decodeContext(elements);
+            }
+            csObjs = new CSObj[in.getInt()];
+            for (int i = 0; i < csObjs.length; ++i) {
+                csObjs[i] = csManager.getCSObj(contexts[in.getInt()], objs[in.getInt()]);
+                csObjIds.put(csObjs[i], i);
+            }
+            for (int i = in.getInt(); i > 0; --i) {
+                Context context = contexts[in.getInt()];
+                JMethod method = decoder.getMethod(strings[in.getInt()]);
+                CSVar csVar = csManager.getCSVar(context, method.getIR().getVar(in.getInt()));
+                readPointsToSet(in, csVar);
+            }
+            for (int i = in.getInt(); i > 0; --i) {
+                readPointsToSet(in, csManager.getStaticField(
+                        hierarchy.getField(strings[in.getInt()])));
+            }
+            for (int i = in.getInt(); i > 0; --i) {
+                CSObj base = csObjs[in.getInt()];
+                readPointsToSet(in, csManager.getInstanceField(
+                        base, hierarchy.getField(strings[in.getInt()])));
+            }
+            for (int i = in.getInt(); i > 0; --i) {
+                readPointsToSet(in, csManager.getArrayIndex(csObjs[in.getInt()]));
+            }
+            CSCallGraph callGraph = new CSCallGraph(csManager);
+            CSMethod[] csMethods = new CSMethod[in.getInt()];
+            for (int i = 0; i < csMethods.length; ++i) {
+                Context context = contexts[in.getInt()];
+                csMethods[i] = csManager.getCSMethod(context,
+                        decoder.getMethod(strings[in.getInt()]));
+                callGraph.addReachableMethod(csMethods[i]);
+            }
+            for (int i = in.getInt(); i > 0; --i) {
+                callGraph.addEntryMethod(csMethods[in.getInt()]);
+            }
+            for (int i = in.getInt(); i > 0; --i) {
+                CallKind kind = CallKind.valueOf(strings[in.getInt()]);
+                Context context = contexts[in.getInt()];
+                Invoke callSite = decoder.decodeStmt(readStmt(in), Invoke.class);
+                CSCallSite csCallSite = csManager.getCSCallSite(context, callSite);
+                callGraph.addEdge(new Edge<>(kind, csCallSite, csMethods[in.getInt()]));
+            }
+            return new PointerAnalysisResultImpl(csManager, callGraph);
+        }
+
+        private void readPointsToSet(ByteBuffer in, Pointer pointer) {
+            int offset = in.getInt();
+            pointer.setPointsToSet(offset < 0 ? PointsToSetFactory.make() :
+                    new MappedPointsToSet(buffer, offset, csObjs,
+                            obj -> csObjIds.getOrDefault(obj, -1)));
+        }
+
+        private ObjKey readObj(ByteBuffer in) {
+            byte kind = in.get();
+            StmtKey allocation = null;
+            String string = null;
+            String klass = null;
+            switch (kind) {
+                case NEW_OBJ -> allocation = readStmt(in);
+                case STRING_OBJ -> string = strings[in.getInt()];
+                case CLASS_OBJ -> klass = strings[in.getInt()];
+                default -> throw new IllegalStateException("Unknown object kind: " + kind);
+            }
+            return new ObjKey(allocation, string, klass, strings[in.getInt()]);
+        }
+
+        private Object readElement(ByteBuffer in) {
+            byte kind = in.get();
+            return switch (kind) {
+                case OBJ_ELEMENT -> objKeys[in.getInt()];
+                case INVOKE_ELEMENT -> readStmt(in);
+                case TYPE_ELEMENT -> new TypeKey(strings[in.getInt()]);
+                default -> throw new IllegalStateException(
+                        "Unknown context element kind: " + kind);
+            };
+        }
+
+        private StmtKey readStmt(ByteBuffer in) {
+            return new StmtKey(strings[in.getInt()], in.getInt());
+        }
+    }
+}
@@ -24,18 +24,18 @@ package pascal.taie.analysis.pta.plugin;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.ResultDigest;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.collection.Streams;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
@@ -45,8 +45,13 @@ import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static pascal.taie.util.collection.CollectionUtils.sum;
 
@@ -54,14 +59,15 @@ import static pascal.taie.util.collection.CollectionUtils.sum;
  * Dump points-to set to file or compare the analysis result with
  * the ones read from input file.
  * Currently, the compare functionality is mainly for testing purpose.
- * It is not efficient and not recommended applying on large program.
+ * By default, it compares the string representations of all results,
+ * which is not efficient and not recommended applying on large program.
+ * Option "compare-mode:digest" compares digests of the results instead,
+ * and formats strings only for the mismatched results.
  */
 public class ResultProcessor {
 
     private static final Logger logger = LogManager.getLogger(ResultProcessor.class);
 
-    private static final String HEADER = "Points-to sets of all ";
-
     /**
      * Separator between pointer and its points-to set.
      */
@@ -78,8 +84,29 @@ public class ResultProcessor {
         }
         String file = options.getString("file");
         switch (action) {
-            case "dump" -> dumpPointsToSet(result, file);
-            case "compare" -> comparePointsToSet(result, file);
+            case "dump" -> dumpPointsToSet(options, result, file);
+            case "compare" -> {
+                if (isDigestCompare(options)) {
+                    comparePointsToSetDigests(result, file);
+                } else {
+                    comparePointsToSet(result, file);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether compare the digests of the results (compare-mode:digest)
+     * instead of their string representations (compare-mode:full, default).
+     */
+    private static boolean isDigestCompare(AnalysisOptions options) {
+        String mode = options.getString("compare-mode");
+        if (mode == null || mode.equals("full")) {
+            return false;
+        } else if (mode.equals("digest")) {
+            return true;
+        } else {
+            throw new ConfigException("Unknown compare mode: " + mode);
         }
     }
 
@@ -92,10 +119,15 @@ public class ResultProcessor {
         int sfptSizeSens = sum(result.getStaticFields(), getSize);
         int ifptSizeSens = sum(result.getInstanceFields(), getSize);
         int aptSizeSens = sum(result.getArrayIndexes(), getSize);
+        int pointers = varSens + result.getStaticFields().size() +
+                result.getInstanceFields().size() + result.getArrayIndexes().size();
+        int distinctPts = countDistinctPointsToSets(result);
         int reachableInsens = result.getCallGraph().getNumberOfMethods();
         int reachableSens = result.getCSCallGraph().getNumberOfMethods();
-        int callEdgeInsens = (int) result.getCallGraph().edges().count();
-        int callEdgeSens = (int) result.getCSCallGraph().edges().count();
+        int callEdgeInsens = result.getCallGraph().getNumberOfEdges();
+        int callEdgeSens = result.getCSCallGraph().getNumberOfEdges();
+        long hits = DispatchTable.getHits();
+        long lookups = hits + DispatchTable.getMisses();
         System.out.println("-------------- Pointer analysis statistics: --------------");
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#var pointers:",
                 format(varInsens), format(varSens));
@@ -107,50 +139,50 @@ public class ResultProcessor {
                 format(ifptSizeSens));
         System.out.printf("%-30s%s (sens)%n", "#array points-to:",
                 format(aptSizeSens));
+        System.out.printf("%-30s%s (sens), dedup ratio %.2f%n", "#distinct points-to sets:",
+                format(distinctPts), (double) pointers / Math.max(distinctPts, 1));
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#reachable methods:",
                 format(reachableInsens), format(reachableSens));
         System.out.printf("%-30s%s (insens) / %s (sens)%n", "#call graph edges:",
                 format(callEdgeInsens), format(callEdgeSens));
+        System.out.printf("%-30s%s / %s lookups (%.1f%%)%n", "#dispatch cache hits:",
+                format(hits), format(lookups), 100.0 * hits / Math.max(lookups, 1));
         System.out.println("----------------------------------------");
     }
 
-    private static String format(int i) {
+    /**
+     * @return the number of distinct (by contents) points-to sets of
+     * all context-sensitive pointers. The ratio of the number of pointers
+     * to this number shows how much memory could be saved by sharing
+     * equal points-to sets (see option "share-pts").
+     */
+    private static int countDistinctPointsToSets(PointerAnalysisResult result) {
+        return (int) getPointers(result)
+                .map(p -> p.getPointsToSet().getObjects())
+                .distinct()
+                .count();
+    }
+
+    private static String format(long i) {
         return formatter.format(i);
     }
 
-    private static void dumpPointsToSet(PointerAnalysisResult result, String output) {
-        PrintStream out;
-        if (output != null) {  // if output file is given, then dump to the file
-            File outFile = new File(output);
-            try {
-                out = new PrintStream(new FileOutputStream(outFile));
-                logger.info("Dumping points-to set to {} ...", outFile);
-            } catch (FileNotFoundException e) {
-                throw new RuntimeException("Failed to open output file", e);
-            }
-        } else {  // otherwise, dump to System.out
-            out = System.out;
+    private static void dumpPointsToSet(AnalysisOptions options,
+                                        PointerAnalysisResult result, String output) {
+        if (output != null) {
+            logger.info("Dumping points-to set to {} ...", output);
         }
-        dumpPointers(out, result.getCSVars(), "variables");
-        dumpPointers(out, result.getStaticFields(), "static fields");
-        dumpPointers(out, result.getInstanceFields(), "instance fields");
-        dumpPointers(out, result.getArrayIndexes(), "array indexes");
-        if (out != System.out) {
-            out.close();
+        try (PointsToDumper dumper = new PointsToDumper(options, output)) {
+            dumper.dumpPointers(result.getCSVars(), "variables");
+            dumper.dumpPointers(result.getStaticFields(), "static fields");
+            dumper.dumpPointers(result.getInstanceFields(), "instance fields");
+            dumper.dumpPointers(result.getArrayIndexes(), "array indexes");
         }
     }
 
-    private static void dumpPointers(PrintStream out, Collection<? extends Pointer> pointers, String desc) {
-        out.println(HEADER + desc);
-        pointers.stream()
-                .sorted(Comparator.comparing(Pointer::toString))
-                .forEach(p -> out.println(p + SEP + toString(p.getPointsToSet())));
-        out.println();
-    }
-
     private static void comparePointsToSet(PointerAnalysisResult result, String input) {
         logger.info("Comparing points-to set with {} ...", input);
-        var inputs = readPointsToSets(input);
+        var inputs = readPointsToSets(input, pointerStr -> true);
         Map<String, Pointer> pointers = new LinkedHashMap<>();
         addPointers(pointers, result.getCSVars());
         addPointers(pointers, result.getStaticFields());
@@ -179,12 +211,166 @@ public class ResultProcessor {
         }
     }
 
-    private static Map<String, String> readPointsToSets(String input) {
+    /**
+     * Compares the points-to sets with the ones in the input file by digests.
+     * The input file is parsed in parallel into the digests of the pointers
+     * and of their points-to sets. The digest of a points-to set combines
+     * the digests of its objects regardless of their order, and the digest
+     * of each object is computed once, so the points-to sets are formatted
+     * to strings only for the pointers whose digests mismatch.
+     * The pointers whose digests collide with others are always compared
+     * by their strings.
+     */
+    private static void comparePointsToSetDigests(
+            PointerAnalysisResult result, String input) {
+        logger.info("Comparing digests of points-to set with {} ...", input);
+        Set<Long> collided = ConcurrentHashMap.newKeySet();
+        Map<Long, Long> inputs = readPointsToSetDigests(input, collided);
+        Map<Long, Pointer> pointers = new ConcurrentHashMap<>();
+        Map<CSObj, Long> objDigests = new ConcurrentHashMap<>();
+        getPointers(result).parallel().forEach(p -> {
+            long key = ResultDigest.of(p.toString());
+            if (pointers.putIfAbsent(key, p) != null) {
+                collided.add(key);
+            }
+        });
+        Set<Long> mismatched = pointers.entrySet()
+                .parallelStream()
+                .filter(e -> !collided.contains(e.getKey()))
+                .filter(e -> !Objects.equals(inputs.get(e.getKey()),
+                        digestOf(e.getValue().getPointsToSet(), objDigests)))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+        Set<Long> absent = inputs.keySet()
+                .parallelStream()
+                .filter(Predicate.not(pointers::containsKey))
+                .collect(Collectors.toSet());
+        if (mismatched.isEmpty() && absent.isEmpty() && collided.isEmpty()) {
+            return;
+        }
+        // read the expected points-to sets of mismatched and collided pointers
+        Map<String, String> expected = readPointsToSets(input, pointerStr -> {
+            long key = ResultDigest.of(pointerStr);
+            return mismatched.contains(key) || absent.contains(key)
+                    || collided.contains(key);
+        });
+        List<Pointer> compared = new ArrayList<>();
+        mismatched.forEach(key -> compared.add(pointers.get(key)));
+        if (!collided.isEmpty()) {
+            getPointers(result)
+                    .filter(p -> collided.contains(ResultDigest.of(p.toString())))
+                    .forEach(compared::add);
+        }
+        List<String> mismatches = new ArrayList<>();
+        compared.sort(Comparator.comparing(Pointer::toString));
+        compared.forEach(pointer -> {
+            String pointerStr = pointer.toString();
+            String expectedPts = expected.remove(pointerStr);
+            String givenPts = toString(pointer.getPointsToSet());
+            if (!givenPts.equals(expectedPts)) {
+                mismatches.add(String.format("%s, expected: %s, given: %s",
+                        pointerStr, expectedPts, givenPts));
+            }
+        });
+        // the remaining expected pointers are absent in the given result
+        expected.forEach((pointerStr, pts) ->
+                mismatches.add(String.format("%s, expected: %s, given: null",
+                        pointerStr, pts)));
+        if (!mismatches.isEmpty()) {
+            throw new AnalysisException("Mismatches of points-to set\n" +
+                    String.join("\n", mismatches));
+        }
+    }
+
+    private static Stream<Pointer> getPointers(PointerAnalysisResult result) {
+        return Stream.<Collection<? extends Pointer>>of(
+                        result.getCSVars(), result.getStaticFields(),
+                        result.getInstanceFields(), result.getArrayIndexes())
+                .flatMap(Collection::stream);
+    }
+
+    /**
+     * Reads the digests of the pointers and of their points-to sets.
+     * The digests of pointers that occur more than once are added
+     * to {@code collided}.
+     */
+    private static Map<Long, Long> readPointsToSetDigests(
+            String input, Set<Long> collided) {
+        try (Stream<String> lines = Files.lines(Path.of(input))) {
+            Map<Long, Long> digests = new ConcurrentHashMap<>();
+            lines.parallel()
+                    .filter(line -> line.contains(SEP))
+                    .map(line -> line.split(SEP))
+                    .forEach(s -> {
+                        long key = ResultDigest.of(s[0]);
+                        if (digests.putIfAbsent(key, digestOf(s[1])) != null) {
+                            collided.add(key);
+                        }
+                    });
+            return digests;
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to read points-to set from " + input, e);
+        }
+    }
+
+    /**
+     * @return the digest of given points-to set, i.e., the digest of the
+     * strings of its objects, whose digests are cached in {@code objDigests}.
+     */
+    private static long digestOf(PointsToSet pts, Map<CSObj, Long> objDigests) {
+        return pts.objects()
+                .mapToLong(o -> objDigests.computeIfAbsent(o,
+                        obj -> ResultDigest.of(obj.toString())))
+                .sum();
+    }
+
+    /**
+     * @return the digest of the points-to set in given string
+     * "[o1, o2, ...]", which is the same as the digest of the
+     * points-to set given by {@link #digestOf(PointsToSet, Map)}.
+     */
+    private static long digestOf(String pts) {
+        return ResultDigest.ofLines(splitObjects(pts));
+    }
+
+    /**
+     * Splits the string of a points-to set into the strings of its objects,
+     * which may contain ", " in their brackets (e.g., contexts).
+     */
+    private static Stream<String> splitObjects(String pts) {
+        List<String> objs = new ArrayList<>();
+        int depth = 0;
+        int start = 1;
+        for (int i = 1; i < pts.length() - 1; ++i) {
+            switch (pts.charAt(i)) {
+                case '[', '{', '(', '<' -> ++depth;
+                case ']', '}', ')', '>' -> --depth;
+                case ',' -> {
+                    if (depth == 0 && pts.startsWith(", ", i)) {
+                        objs.add(pts.substring(start, i));
+                        start = i + 2;
+                    }
+                }
+            }
+        }
+        if (start < pts.length() - 1) {
+            objs.add(pts.substring(start, pts.length() - 1));
+        }
+        return objs.stream();
+    }
+
+    /**
+     * Reads the points-to sets of the pointers accepted by the filter.
+     */
+    private static Map<String, String> readPointsToSets(
+            String input, Predicate<String> filter) {
         try {
             Map<String, String> result = new LinkedHashMap<>();
             Files.lines(Path.of(input))
                     .filter(line -> line.contains(SEP))
                     .map(line -> line.split(SEP))
+                    .filter(s -> filter.test(s[0]))
                     .forEach(s -> result.put(s[0], s[1]));
             return result;
         } catch (IOException e) {
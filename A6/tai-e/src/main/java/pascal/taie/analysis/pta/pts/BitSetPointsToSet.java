@@ -0,0 +1,326 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set which stores the dense indexes of its objects
+ * (see {@link CSObjIndexer}) instead of the objects themselves.
+ * Small sets are kept in a sorted int array; once a set grows beyond
+ * {@link #SPARSE_LIMIT}, it switches to a bit set, so that set union,
+ * difference and membership test work on 64 objects per word operation.
+ */
+class BitSetPointsToSet implements PointsToSet {
+
+    /**
+     * Maximum number of objects kept in the sparse representation.
+     */
+    static final int SPARSE_LIMIT = 16;
+
+    private static final int[] EMPTY_ELEMENTS = new int[0];
+
+    private final CSObjIndexer indexer;
+
+    /**
+     * Sorted indexes of the objects in this set, or null if this set
+     * is dense. Only the first {@link #size} elements are valid.
+     */
+    private int[] elements = EMPTY_ELEMENTS;
+
+    /**
+     * Bits of the indexes of the objects in this set, or null if
+     * this set is sparse.
+     */
+    private long[] words;
+
+    private int size;
+
+    BitSetPointsToSet(CSObjIndexer indexer) {
+        this.indexer = indexer;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        return add(indexer.getIndex(obj));
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof BitSetPointsToSet other) {
+            return union(other, null);
+        }
+        boolean changed = false;
+        for (CSObj obj : pts) {
+            changed |= addObject(obj);
+        }
+        return changed;
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        BitSetPointsToSet diff = new BitSetPointsToSet(indexer);
+        if (pts instanceof BitSetPointsToSet other) {
+            union(other, diff);
+        } else {
+            for (CSObj obj : pts) {
+                int index = indexer.getIndex(obj);
+                if (add(index)) {
+                    diff.add(index);
+                }
+            }
+        }
+        return diff;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        // an object without index cannot be in any set of the indexer
+        int index = indexer.findIndex(obj);
+        return index >= 0 && has(index);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return BitSetPointsToSet.this.iterator();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj &&
+                        BitSetPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return getObjects().stream();
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        return new Iterator<>() {
+
+            /**
+             * Position in {@link #elements} for sparse sets,
+             * or the next candidate index for dense sets.
+             */
+            private int cursor = words == null ? 0 : nextSetBit(0);
+
+            @Override
+            public boolean hasNext() {
+                return words == null ? cursor < size : cursor >= 0;
+            }
+
+            @Override
+            public CSObj next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int index;
+                if (words == null) {
+                    index = elements[cursor++];
+                } else {
+                    index = cursor;
+                    cursor = nextSetBit(cursor + 1);
+                }
+                return indexer.getObject(index);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+
+    private boolean has(int index) {
+        if (words != null) {
+            int w = index >>> 6;
+            return w < words.length && (words[w] & (1L << index)) != 0;
+        } else {
+            return Arrays.binarySearch(elements, 0, size, index) >= 0;
+        }
+    }
+
+    private boolean add(int index) {
+        if (words != null) {
+            int w = index >>> 6;
+            ensureWords(w + 1);
+            long bit = 1L << index;
+            if ((words[w] & bit) == 0) {
+                words[w] |= bit;
+                ++size;
+                return true;
+            }
+            return false;
+        }
+        int pos = Arrays.binarySearch(elements, 0, size, index);
+        if (pos >= 0) {
+            return false;
+        }
+        if (size == SPARSE_LIMIT) {
+            toDense();
+            return add(index);
+        }
+        pos = -pos - 1;
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements,
+                    Math.min(SPARSE_LIMIT, Math.max(4, size * 2)));
+        }
+        System.arraycopy(elements, pos, elements, pos + 1, size - pos);
+        elements[pos] = index;
+        ++size;
+        return true;
+    }
+
+    /**
+     * Adds all objects in other to this set, and if diff is not null,
+     * also adds the newly-added objects to diff.
+     *
+     * @return true if this set changed as a result of the call.
+     */
+    private boolean union(BitSetPointsToSet other,
+                          @Nullable BitSetPointsToSet diff) {
+        if (other.words == null) {
+            boolean changed = false;
+            for (int i = 0; i < other.size; ++i) {
+                int index = other.elements[i];
+                if (add(index)) {
+                    changed = true;
+                    if (diff != null) {
+                        diff.add(index);
+                    }
+                }
+            }
+            return changed;
+        }
+        // sets never shrink, thus a dense other contains more
+        // than SPARSE_LIMIT objects, and so will this set
+        if (words == null) {
+            toDense();
+        }
+        ensureWords(other.words.length);
+        boolean changed = false;
+        for (int w = 0; w < other.words.length; ++w) {
+            long added = other.words[w] & ~words[w];
+            if (added != 0) {
+                words[w] |= added;
+                size += Long.bitCount(added);
+                changed = true;
+                if (diff != null) {
+                    diff.addWord(w, added);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Adds the indexes represented by the w-th word bits to this set.
+     */
+    private void addWord(int w, long bits) {
+        if (words == null && size + Long.bitCount(bits) > SPARSE_LIMIT) {
+            toDense();
+        }
+        if (words != null) {
+            ensureWords(w + 1);
+            long added = bits & ~words[w];
+            words[w] |= added;
+            size += Long.bitCount(added);
+        } else {
+            for (long b = bits; b != 0; b &= b - 1) {
+                add((w << 6) + Long.numberOfTrailingZeros(b));
+            }
+        }
+    }
+
+    /**
+     * Converts this set from sparse representation to bit set.
+     */
+    private void toDense() {
+        int maxIndex = size == 0 ? 0 : elements[size - 1];
+        words = new long[(maxIndex >>> 6) + 1];
+        for (int i = 0; i < size; ++i) {
+            int index = elements[i];
+            words[index >>> 6] |= 1L << index;
+        }
+        elements = null;
+    }
+
+    private void ensureWords(int length) {
+        if (words.length < length) {
+            words = Arrays.copyOf(words, Math.max(length, words.length * 2));
+        }
+    }
+
+    /**
+     * @return the smallest index in this (dense) set that is greater
+     * than or equal to from, or -1 if there is no such index.
+     */
+    private int nextSetBit(int from) {
+        int w = from >>> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+}
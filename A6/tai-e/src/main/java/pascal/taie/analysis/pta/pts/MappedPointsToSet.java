@@ -0,0 +1,159 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Read-only points-to set which is a view over a buffer, e.g., a file
+ * mapped in memory. The set is stored as its size followed by the sorted
+ * ids of its objects, and the objects are decoded on access.
+ */
+public class MappedPointsToSet implements PointsToSet {
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Offset of the set in {@link #buffer}.
+     */
+    private final int offset;
+
+    private final CSObj[] objects;
+
+    private final ToIntFunction<CSObj> idOf;
+
+    /**
+     * @param buffer  the buffer containing the set
+     * @param offset  the offset of the set in the buffer
+     * @param objects the objects indexed by their ids
+     * @param idOf    the function which returns the id of an object,
+     *                or -1 if the object has no id
+     */
+    public MappedPointsToSet(ByteBuffer buffer, int offset,
+                             CSObj[] objects, ToIntFunction<CSObj> idOf) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.objects = objects;
+        this.idOf = idOf;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        throw new UnsupportedOperationException("MappedPointsToSet is read-only");
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        throw new UnsupportedOperationException("MappedPointsToSet is read-only");
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        int id = idOf.applyAsInt(obj);
+        if (id < 0) {
+            return false;
+        }
+        int low = 0, high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = idAt(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int size() {
+        return buffer.getInt(offset);
+    }
+
+    private int idAt(int i) {
+        return buffer.getInt(offset + Integer.BYTES * (i + 1));
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return new AbstractSet<>() {
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof CSObj obj && MappedPointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<CSObj> iterator() {
+                return new Iterator<>() {
+
+                    private int i = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < size();
+                    }
+
+                    @Override
+                    public CSObj next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return objects[idAt(i++)];
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return MappedPointsToSet.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return IntStream.range(0, size()).mapToObj(i -> objects[idAt(i)]);
+    }
+
+    @Override
+    public String toString() {
+        return getObjects().toString();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Hash-consing pool of immutable points-to sets. Equal sets interned
+ * in the pool are represented by one {@link Node}, which counts its
+ * references and leaves the pool once it is no longer referenced.
+ * <p>
+ * This class is not thread-safe.
+ */
+class PointsToSetPool {
+
+    /**
+     * Factory of the (mutable) sets that are interned in this pool.
+     */
+    private final Supplier<PointsToSet> factory;
+
+    private final Map<Set<CSObj>, Node> nodes = Maps.newMap();
+
+    private final Node empty;
+
+    PointsToSetPool(Supplier<PointsToSet> factory) {
+        this.factory = factory;
+        this.empty = new Node(factory.get());
+        // the empty set is always kept in the pool
+        empty.refs = 1;
+        nodes.put(empty.set.getObjects(), empty);
+    }
+
+    /**
+     * @return a new mutable points-to set which is not in this pool.
+     */
+    PointsToSet makeSet() {
+        return factory.get();
+    }
+
+    /**
+     * @return the node of the empty set.
+     */
+    Node getEmpty() {
+        ++empty.refs;
+        return empty;
+    }
+
+    /**
+     * Interns the given set, which must not be modified afterwards.
+     *
+     * @return the node of the set, which is referenced once more.
+     */
+    Node intern(PointsToSet set) {
+        Node node = nodes.get(set.getObjects());
+        if (node == null) {
+            node = new Node(set);
+            nodes.put(set.getObjects(), node);
+        }
+        ++node.refs;
+        return node;
+    }
+
+    /**
+     * Drops one reference to the given node.
+     */
+    void release(Node node) {
+        if (--node.refs == 0) {
+            nodes.remove(node.set.getObjects());
+        }
+    }
+
+    /**
+     * @return the number of distinct sets in this pool.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    static class Node {
+
+        final PointsToSet set;
+
+        private int refs;
+
+        private Node(PointsToSet set) {
+            this.set = set;
+        }
+
+        /**
+         * @return whether the set of this node is referenced by more than
+         * one points-to set, i.e., it cannot be modified in place.
+         */
+        boolean isShared() {
+            return refs > 1;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static pascal.taie.analysis.pta.PTATests.getPointsToSets;
+
+/**
+ * Analyzes the programs of {@link CSPTATest} with a budget which is
+ * exceeded from the start, so the context sensitivity is degraded
+ * before any context is selected, and the results equal the results
+ * of the context-insensitive analysis.
+ */
+public class BudgetCSPTATest {
+
+    private static void test(String main, String cs) {
+        assertNotEquals(getPointsToSets(main, "cs:ci"),
+                getPointsToSets(main, "cs:" + cs));
+        assertEquals(getPointsToSets(main, "cs:ci"),
+                getPointsToSets(main, "cs:" + cs + ";time-budget:0"));
+    }
+
+    @Test
+    public void testTwoObject() {
+        test("TwoObject", "2-obj");
+    }
+
+    @Test
+    public void testTwoCall() {
+        test("TwoCall", "2-call");
+    }
+}
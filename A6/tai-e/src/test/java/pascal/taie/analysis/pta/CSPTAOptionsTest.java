@@ -0,0 +1,147 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import pascal.taie.analysis.Tests;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the context-sensitive pointer analysis with the options that
+ * must not change its results, and compares the results with the
+ * expected results of the default options.
+ */
+@RunWith(Parameterized.class)
+public class CSPTAOptionsTest {
+
+    static final String DIR = "cspta";
+
+    /**
+     * @return the option of each run and how many times each program
+     * is analyzed with it. Parallel solving is repeated, as scheduling
+     * differs between runs.
+     */
+    @Parameterized.Parameters(name = "{0}")
+    public static List<Object[]> options() {
+        return List.of(new Object[][]{
+                {"threads:4", 3},
+                {"work-list-order:lrf", 1},
+                {"work-list-order:topo", 1},
+                {"compact-result:true", 1},
+                {"pts:bit-set", 1},
+                {"share-pts:true", 1},
+                {"ci-pre-analysis:true", 1},
+        });
+    }
+
+    @Parameterized.Parameter(0)
+    public String option;
+
+    @Parameterized.Parameter(1)
+    public int runs;
+
+    private void test(String main, String... opts) {
+        String[] args = Arrays.copyOf(opts, opts.length + 1);
+        args[opts.length] = option;
+        for (int i = 0; i < runs; ++i) {
+            Tests.testCSPTA(DIR, main, args);
+        }
+    }
+
+    @Test
+    public void testNew() {
+        test("New");
+    }
+
+    @Test
+    public void testAssign() {
+        test("Assign");
+    }
+
+    @Test
+    public void testStoreLoad() {
+        test("StoreLoad");
+    }
+
+    @Test
+    public void testCall() {
+        test("Call");
+    }
+
+    @Test
+    public void testInstanceField() {
+        test("InstanceField");
+    }
+
+    @Test
+    public void testOneCall() {
+        test("OneCall", "cs:1-call");
+    }
+
+    @Test
+    public void testOneObject() {
+        test("OneObject", "cs:1-obj");
+    }
+
+    @Test
+    public void testOneType() {
+        test("OneType", "cs:1-type");
+    }
+
+    @Test
+    public void testTwoCall() {
+        test("TwoCall", "cs:2-call");
+    }
+
+    @Test
+    public void testTwoObject() {
+        test("TwoObject", "cs:2-obj");
+    }
+
+    @Test
+    public void testTwoType() {
+        test("TwoType", "cs:2-type");
+    }
+
+    @Test
+    public void testStaticField() {
+        test("StaticField");
+    }
+
+    @Test
+    public void testArray() {
+        test("Array");
+    }
+
+    @Test
+    public void testCollapseCycles() {
+        // parallel solving does not support cycle collapsing
+        Assume.assumeFalse(option.startsWith("threads"));
+        test("InstanceField", "collapse-cycles:true");
+    }
+}
@@ -93,4 +93,9 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testDigestCompare() {
+        Tests.testCSPTA(DIR, "TwoObject", "cs:2-obj", "compare-mode:digest");
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Queries the points-to sets of the variables in the programs of
+ * {@link CSPTATest} on demand, and compares the answers with the
+ * results of the context-insensitive analysis of the whole program.
+ */
+public class DemandPointsToTest {
+
+    private static final String CLASS_PATH = "src/test/resources/pta/" + CSPTATest.DIR;
+
+    private static PointerAnalysisResult analyze(String main, String opts) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", "cspta=cs:ci;implicit-entries:false;only-app:true" + opts});
+        return World.get().getResult(CSPTA.ID);
+    }
+
+    private static String toString(Var var) {
+        return var.getMethod().getSignature() + "/" + var.getName();
+    }
+
+    /**
+     * @return the points-to sets of the variables of the reachable methods.
+     */
+    private static Map<String, Set<String>> getPointsToSets(String main, String opts) {
+        Set<String> methods = analyze(main, "").getCallGraph()
+                .reachableMethods()
+                .map(JMethod::getSignature)
+                .collect(Collectors.toSet());
+        PointerAnalysisResult result = opts.isEmpty() ? World.get().getResult(CSPTA.ID) :
+                analyze(main, opts);
+        Map<String, Set<String>> pointsToSets = new TreeMap<>();
+        World.get().getClassHierarchy().applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> methods.contains(m.getSignature()))
+                .flatMap(m -> m.getIR().getVars().stream())
+                .forEach(v -> pointsToSets.put(toString(v), result.getPointsToSet(v)
+                        .stream()
+                        .map(Object::toString)
+                        .collect(Collectors.toCollection(TreeSet::new))));
+        return pointsToSets;
+    }
+
+    private static void test(String main) {
+        assertEquals(getPointsToSets(main, ""),
+                getPointsToSets(main, ";demand:true"));
+    }
+
+    @Test
+    public void testNew() {
+        test("New");
+    }
+
+    @Test
+    public void testAssign() {
+        test("Assign");
+    }
+
+    @Test
+    public void testStoreLoad() {
+        test("StoreLoad");
+    }
+
+    @Test
+    public void testCall() {
+        test("Call");
+    }
+
+    @Test
+    public void testInstanceField() {
+        test("InstanceField");
+    }
+
+    @Test
+    public void testStaticField() {
+        test("StaticField");
+    }
+
+    @Test
+    public void testArray() {
+        test("Array");
+    }
+
+    @Test
+    public void testBudget() {
+        // the conservative answers include the precise answers
+        Map<String, Set<String>> expected = getPointsToSets("InstanceField", "");
+        Map<String, Set<String>> actual = getPointsToSets(
+                "InstanceField", ";demand:true;demand-budget:1");
+        expected.forEach((var, pts) -> assertTrue(var,
+                actual.get(var).containsAll(pts)));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+import pascal.taie.Main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Edits the programs of {@link CSPTATest}, re-solves the analysis
+ * incrementally from the state of the original program, and compares
+ * the results with the results of solving the edited programs from scratch.
+ */
+public class IncrementalCSPTATest {
+
+    private static final Path DIR = Path.of("src/test/resources/pta", CSPTATest.DIR);
+
+    /**
+     * Analyzes program {@code main} and saves the solver state, then
+     * replaces {@code target} by {@code replacement} in the program,
+     * and analyzes the edited program incrementally and from scratch.
+     */
+    private static void test(String main, String cs, String changedClasses,
+                             String target, String replacement) throws IOException {
+        Path dir = Files.createTempDirectory("incremental-cspta");
+        Path source = dir.resolve(main + ".java");
+        String program = Files.readString(DIR.resolve(main + ".java"));
+        Files.writeString(source, program);
+        Path state = dir.resolve("state");
+        analyze(dir, main, cs + ";incremental-state:" + state, dir.resolve("before.txt"));
+        if (!target.isEmpty()) {
+            assertTrue(program.contains(target));
+            Files.writeString(source, program.replace(target, replacement));
+        }
+        Path incremental = dir.resolve("incremental.txt");
+        analyze(dir, main, cs + ";incremental-state:" + state +
+                ";changed-classes:" + changedClasses, incremental);
+        Path scratch = dir.resolve("scratch.txt");
+        analyze(dir, main, cs, scratch);
+        assertEquals(Files.readString(scratch), Files.readString(incremental));
+    }
+
+    private static void analyze(Path dir, String main, String opts, Path file) {
+        Main.main(new String[]{
+                "-pp", "-cp", dir.toString(), "-m", main,
+                "-a", "cspta=implicit-entries:false;only-app:true;" + opts +
+                ";action:dump;file:" + file});
+    }
+
+    @Test
+    public void testUnchanged() throws IOException {
+        test("TwoObject", "cs:2-obj", "", "", "");
+    }
+
+    @Test
+    public void testCall() throws IOException {
+        test("Call", "cs:ci", "A",
+                "return c;", "return new C();");
+    }
+
+    @Test
+    public void testStaticField() throws IOException {
+        test("StaticField", "cs:ci", "StaticField",
+                "B b = A.b;", "B b = new B();");
+    }
+
+    @Test
+    public void testInstanceField() throws IOException {
+        test("InstanceField", "cs:ci", "A",
+                "C c = a.b.foo();", "C c = b.foo();");
+    }
+
+    @Test
+    public void testTwoObject() throws IOException {
+        test("TwoObject", "cs:2-obj", "List",
+                "this.element = e;", "this.element = new Object();");
+    }
+
+    @Test
+    public void testTwoCall() throws IOException {
+        test("TwoCall", "cs:2-call", "TwoCall",
+                "B c = a.id(new C());", "B c = a._id(new C());");
+    }
+
+    @Test
+    public void testDispatch() throws IOException {
+        // B.m() is removed, so new B().m() is dispatched to A.m()
+        test("OneType", "cs:1-type", "B", """
+                class B {
+                    void m() {
+                        C c3 = new C();
+                        c3.set(new D());
+                        D y = c3.get();
+                    }
+                }""", "class B extends A {\n}");
+    }
+}
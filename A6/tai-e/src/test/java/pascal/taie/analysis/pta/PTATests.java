@@ -0,0 +1,64 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.cs.CSPTA;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Static utility methods for the tests which compare the results of
+ * analyzing the programs of {@link CSPTATest} with different options.
+ */
+final class PTATests {
+
+    private PTATests() {
+    }
+
+    private static final String CLASS_PATH = "src/test/resources/pta/" + CSPTATest.DIR;
+
+    /**
+     * Analyzes given program with given options of cspta.
+     *
+     * @return the points-to sets of the variables of the application classes.
+     */
+    static Map<String, Set<String>> getPointsToSets(String main, String opts) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", "cspta=implicit-entries:false;only-app:true;" + opts});
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        Map<String, Set<String>> pointsToSets = new TreeMap<>();
+        result.getVars().forEach(v -> pointsToSets.put(
+                v.getMethod().getSignature() + "/" + v.getName(),
+                result.getPointsToSet(v)
+                        .stream()
+                        .map(Object::toString)
+                        .collect(Collectors.toCollection(TreeSet::new))));
+        return pointsToSets;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.util.AnalysisException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Dumps the results of {@link CSPTATest} programs with different dump
+ * options, and checks that they agree with the default dump
+ * and that the dumps can be compared by digests.
+ */
+public class PointsToDumpTest {
+
+    private static final Path DIR = Path.of("src/test/resources/pta", CSPTATest.DIR);
+
+    private static void dump(String main, String opts, Path file) {
+        Main.main(new String[]{
+                "-pp", "-cp", DIR.toString(), "-m", main,
+                "-a", "cspta=cs:2-obj;implicit-entries:false;only-app:true;" +
+                opts + "action:dump;file:" + file});
+    }
+
+    @Test
+    public void testExternalSort() throws IOException {
+        Path dir = Files.createTempDirectory("pta-dump");
+        Path sorted = dir.resolve("sorted.txt");
+        dump("TwoObject", "", sorted);
+        Path external = dir.resolve("external.txt");
+        dump("TwoObject", "dump-sort-threshold:1;", external);
+        assertEquals(Files.readString(sorted), Files.readString(external));
+    }
+
+    @Test
+    public void testUnsorted() throws IOException {
+        Path dir = Files.createTempDirectory("pta-dump");
+        Path sorted = dir.resolve("sorted.txt");
+        dump("TwoObject", "", sorted);
+        Path unsorted = dir.resolve("unsorted.txt");
+        dump("TwoObject", "dump-sorted:false;", unsorted);
+        List<String> expected = Files.readAllLines(sorted);
+        List<String> actual = Files.readAllLines(unsorted);
+        expected.sort(null);
+        actual.sort(null);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testJsonl() throws IOException {
+        Path dir = Files.createTempDirectory("pta-dump");
+        Path jsonl = dir.resolve("pts.jsonl");
+        dump("TwoObject", "dump-format:jsonl;", jsonl);
+        List<String> lines = Files.readAllLines(jsonl);
+        assertTrue(!lines.isEmpty());
+        lines.forEach(line -> assertTrue(line, line.startsWith("{\"kind\":")
+                && line.contains("\"pointer\":") && line.endsWith("]}")));
+    }
+
+    @Test
+    public void testDigestMismatch() throws IOException {
+        Path dir = Files.createTempDirectory("pta-dump");
+        Path expected = dir.resolve("expected.txt");
+        dump("TwoObject", "", expected);
+        List<String> lines = Files.readAllLines(expected);
+        int i = lines.indexOf(lines.stream()
+                .filter(line -> line.endsWith("]") && !line.endsWith(" -> []"))
+                .findFirst()
+                .orElseThrow());
+        String pointer = lines.get(i).substring(0, lines.get(i).indexOf(" -> "));
+        lines.set(i, pointer + " -> []");
+        Files.write(expected, lines);
+        AnalysisException e = assertThrows(AnalysisException.class, () ->
+                Main.main(new String[]{
+                        "-pp", "-cp", DIR.toString(), "-m", "TwoObject",
+                        "-a", "cspta=cs:2-obj;implicit-entries:false;only-app:true;" +
+                        "compare-mode:digest;action:compare;file:" + expected}));
+        assertTrue(e.getMessage(), e.getMessage().contains(pointer + ", expected: []"));
+    }
+}
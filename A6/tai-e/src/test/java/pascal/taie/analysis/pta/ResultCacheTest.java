@@ -0,0 +1,90 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.analysis.Tests;
+import pascal.taie.config.ConfigException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Solves the programs of {@link CSPTATest} with option "result-cache",
+ * then reloads the stored results in later runs, and compares both
+ * the solved and the reloaded results with the expected results.
+ */
+public class ResultCacheTest {
+
+    private static List<Path> getCachedFiles(Path cache) throws IOException {
+        try (Stream<Path> files = Files.list(cache)) {
+            return files.toList();
+        }
+    }
+
+    private static void test(String main, String cs) throws IOException {
+        Path cache = Files.createTempDirectory("pta-cache");
+        String option = "result-cache:" + cache;
+        // solves and stores the result
+        Tests.testCSPTA(CSPTATest.DIR, main, cs, option);
+        List<Path> cached = getCachedFiles(cache);
+        assertEquals(1, cached.size());
+        FileTime stored = Files.getLastModifiedTime(cached.get(0));
+        // reloads the result, which is not stored again
+        Tests.testCSPTA(CSPTATest.DIR, main, cs, option);
+        // dumping the result does not change the key of the result
+        Path dump = cache.resolveSibling(cache.getFileName() + ".txt");
+        Main.main(new String[]{
+                "-pp", "-cp", "src/test/resources/pta/" + CSPTATest.DIR, "-m", main,
+                "-a", "cspta=implicit-entries:false;only-app:true;" + cs + ";" +
+                option + ";action:dump;file:" + dump});
+        assertEquals(cached, getCachedFiles(cache));
+        assertEquals(stored, Files.getLastModifiedTime(cached.get(0)));
+    }
+
+    @Test
+    public void testTwoObject() throws IOException {
+        test("TwoObject", "cs:2-obj");
+    }
+
+    @Test
+    public void testTwoCall() throws IOException {
+        test("TwoCall", "cs:2-call");
+    }
+
+    @Test
+    public void testIncrementalState() throws IOException {
+        Path cache = Files.createTempDirectory("pta-cache");
+        assertThrows(ConfigException.class, () -> Tests.testCSPTA(
+                CSPTATest.DIR, "TwoObject", "cs:2-obj", "result-cache:" + cache,
+                "incremental-state:" + cache.resolve("state")));
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static pascal.taie.analysis.pta.PTATests.getPointsToSets;
+
+/**
+ * Analyzes the programs of {@link CSPTATest} with the context sensitivity
+ * variants selected by Scaler, and checks that the results are at least
+ * as precise as the results of the context-insensitive analysis.
+ * The programs are small enough for Scaler to select the most precise
+ * variant, 2-obj, so the results of TwoObject are strictly more precise.
+ */
+public class ScalerCSPTATest {
+
+    /**
+     * @param gain whether the results must be strictly more precise
+     *             than the results of the context-insensitive analysis
+     */
+    private static void test(String main, boolean gain) {
+        Map<String, Set<String>> ci = getPointsToSets(main, "cs:ci");
+        Map<String, Set<String>> scaler = getPointsToSets(main, "cs:scaler");
+        assertFalse(scaler.isEmpty());
+        scaler.forEach((var, pts) -> assertTrue(var,
+                ci.getOrDefault(var, Set.of()).containsAll(pts)));
+        if (gain) {
+            assertNotEquals(ci, scaler);
+        }
+    }
+
+    @Test
+    public void testTwoObject() {
+        test("TwoObject", true);
+    }
+
+    @Test
+    public void testTwoCall() {
+        test("TwoCall", false);
+    }
+
+    @Test
+    public void testTwoType() {
+        test("TwoType", false);
+    }
+}
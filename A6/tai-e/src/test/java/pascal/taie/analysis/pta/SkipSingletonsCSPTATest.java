@@ -0,0 +1,68 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static pascal.taie.analysis.pta.PTATests.getPointsToSets;
+
+/**
+ * Analyzes the programs of {@link CSPTATest} with option
+ * "skip-singleton-contexts", and checks that the results are between
+ * the results of the context-sensitive analysis without the option
+ * and the results of the context-insensitive analysis.
+ */
+public class SkipSingletonsCSPTATest {
+
+    private static void test(String main, String cs) {
+        Map<String, Set<String>> ci = getPointsToSets(main, "cs:ci");
+        Map<String, Set<String>> precise = getPointsToSets(main, "cs:" + cs);
+        Map<String, Set<String>> skipped = getPointsToSets(main,
+                "cs:" + cs + ";skip-singleton-contexts:true");
+        assertFalse(skipped.isEmpty());
+        skipped.forEach((var, pts) -> {
+            assertTrue(var, ci.getOrDefault(var, Set.of()).containsAll(pts));
+            assertTrue(var, pts.containsAll(precise.getOrDefault(var, Set.of())));
+        });
+    }
+
+    @Test
+    public void testTwoObject() {
+        test("TwoObject", "2-obj");
+    }
+
+    @Test
+    public void testTwoCall() {
+        test("TwoCall", "2-call");
+    }
+
+    @Test
+    public void testOneType() {
+        test("OneType", "1-type");
+    }
+}
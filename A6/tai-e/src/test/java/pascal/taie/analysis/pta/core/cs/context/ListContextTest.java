@@ -0,0 +1,63 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the contexts made while an analysis runs are interned
+ * by the factory of the analysis.
+ */
+public class ListContextTest {
+
+    @Test
+    public void testInternedByCurrentFactory() {
+        ListContextFactory factory = new ListContextFactory();
+        ListContextFactory.setCurrent(factory);
+        try {
+            Context ab = ListContext.make("a", "b");
+            assertSame(ab, ListContext.make("a", "b"));
+            assertSame(ListContext.make("b", "c"), ListContext.append(ab, "c", 2));
+            assertSame(ListContext.make("b"), ListContext.truncate(ab, 1));
+            assertSame(factory.getEmptyContext(), ListContext.make());
+            // ids are dense: [], [a], [a, b], [b], [b, c]
+            assertEquals(0, factory.getId((ListContext<?>) ListContext.make()));
+            assertEquals(2, factory.getId((ListContext<?>) ab));
+            assertEquals(5, factory.getId((ListContext<?>) ListContext.make("c")));
+        } finally {
+            ListContextFactory.setCurrent(null);
+        }
+    }
+
+    @Test
+    public void testNotInterned() {
+        Context ab = ListContext.make("a", "b");
+        assertNotSame(ab, ListContext.make("a", "b"));
+        assertEquals(ab, ListContext.make("a", "b"));
+        assertEquals(ab.hashCode(), ListContext.make("a", "b").hashCode());
+    }
+}
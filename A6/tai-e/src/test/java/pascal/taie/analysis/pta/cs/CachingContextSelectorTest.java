@@ -0,0 +1,82 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.analysis.pta.core.cs.selector.CachingContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.config.AnalysisOptions;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachingContextSelectorTest {
+
+    private static final String CLASS_PATH = "src/test/resources/pta/cspta";
+
+    private static Set<String> solve(String cs, ContextSelector selector) {
+        AnalysisOptions options = new AnalysisOptions(Map.of(
+                "cs", cs,
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", true));
+        Solver solver = new Solver(options,
+                new AllocationSiteBasedModel(options), selector);
+        solver.solve();
+        return solver.getResult().getCSVars()
+                .stream()
+                .map(v -> v + " -> " + new TreeSet<>(v.getPointsToSet()
+                        .getObjects()
+                        .stream()
+                        .map(Object::toString)
+                        .toList()))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static void test(String main, String cs) {
+        Main.buildWorld("-pp", "-cp", CLASS_PATH, "-m", main);
+        CachingContextSelector selector = new CachingContextSelector(
+                CSPTA.getContextSelector(cs), 1024, cs.endsWith("call"));
+        assertEquals(solve(cs, CSPTA.getContextSelector(cs)), solve(cs, selector));
+        assertTrue("no selection is answered by the cache",
+                selector.getHits() > 0);
+    }
+
+    @Test
+    public void testTwoObject() {
+        test("TwoObject", "2-obj");
+    }
+
+    @Test
+    public void testTwoCall() {
+        test("TwoCall", "2-call");
+    }
+}
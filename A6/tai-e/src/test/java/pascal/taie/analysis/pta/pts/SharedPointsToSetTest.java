@@ -0,0 +1,81 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.config.ConfigException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that option "share-pts" makes the pointers with equal
+ * points-to sets share one set.
+ */
+public class SharedPointsToSetTest {
+
+    private static final String CLASS_PATH = "src/test/resources/pta/cspta";
+
+    private static void analyze(String main, String opts) {
+        Main.main(new String[]{"-pp", "-cp", CLASS_PATH, "-m", main,
+                "-a", "cspta=implicit-entries:false;only-app:true;" + opts});
+    }
+
+    @Test
+    public void testShared() {
+        analyze("TwoObject", "cs:2-obj;share-pts:true");
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        List<Pointer> pointers = Stream.<Collection<? extends Pointer>>of(
+                        result.getCSVars(), result.getStaticFields(),
+                        result.getInstanceFields(), result.getArrayIndexes())
+                .flatMap(Collection::stream)
+                .map(Pointer.class::cast)
+                .toList();
+        Set<PointsToSet> sets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Pointer pointer : pointers) {
+            PointsToSet pts = pointer.getPointsToSet();
+            assertTrue(pointer.toString(), pts instanceof SharedPointsToSet);
+            sets.add(((SharedPointsToSet) pts).getSet());
+        }
+        assertTrue(sets.size() + " sets of " + pointers.size() + " pointers",
+                sets.size() < pointers.size());
+    }
+
+    @Test
+    public void testMapBasedCSManager() {
+        assertThrows(ConfigException.class, () -> analyze("TwoObject",
+                "cs:2-obj;share-pts:true;cs-manager:map"));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.analysis.pta.core.cs.element.ArrayBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+
+/**
+ * Benchmarks of the lookups of the implementations of {@link CSManager}
+ * (option "cs-manager") on the variables and objects of a snapshot.
+ * All elements are created in setup, so the benchmarks measure the
+ * lookups of existing elements, which dominate in the analysis.
+ * The contexts of the snapshot belong to its factory, which is thus
+ * shared with the array-based manager, as in the analysis.
+ */
+@State(Scope.Benchmark)
+public class CSManagerBenchmark {
+
+    @Param({"TwoObject", "TwoCall", "TwoType", "StoreLoad"})
+    public String program;
+
+    @Param({"map", "array"})
+    public String manager;
+
+    private CSManager csManager;
+
+    private CSVar[] vars;
+
+    private CSObj[] objects;
+
+    @Setup
+    public void setup() {
+        PTASnapshot snapshot = PTASnapshot.capture(program);
+        csManager = manager.equals("array") ?
+                new ArrayBasedCSManager(new CSObjIndexer(), snapshot.contextFactory) :
+                new MapBasedCSManager();
+        vars = snapshot.vars.toArray(new CSVar[0]);
+        objects = snapshot.objects.toArray(new CSObj[0]);
+        for (CSVar var : vars) {
+            csManager.getCSVar(var.getContext(), var.getVar());
+        }
+        for (CSObj obj : objects) {
+            csManager.getCSObj(obj.getContext(), obj.getObject());
+        }
+    }
+
+    @Benchmark
+    public void getVars(Blackhole bh) {
+        for (CSVar var : vars) {
+            bh.consume(csManager.getCSVar(var.getContext(), var.getVar()));
+        }
+    }
+
+    @Benchmark
+    public void getObjects(Blackhole bh) {
+        for (CSObj obj : objects) {
+            bh.consume(csManager.getCSObj(obj.getContext(), obj.getObject()));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ListContextFactory;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Benchmarks of the creation and hashing of {@link ListContext}
+ * on the contexts of a snapshot.
+ */
+@State(Scope.Benchmark)
+public class ContextBenchmark {
+
+    @Param({"TwoObject", "TwoCall", "TwoType", "OneType"})
+    public String program;
+
+    private Object[][] elements;
+
+    private Context[] contexts;
+
+    /**
+     * The contexts without their last elements.
+     */
+    private Context[] parents;
+
+    /**
+     * The factory that interns {@link #contexts} and {@link #parents}.
+     */
+    private ListContextFactory factory;
+
+    @Setup
+    public void setup() {
+        PTASnapshot snapshot = PTASnapshot.capture(program);
+        factory = snapshot.contextFactory;
+        contexts = snapshot.contexts.toArray(new Context[0]);
+        elements = new Object[contexts.length][];
+        parents = new Context[contexts.length];
+        for (int i = 0; i < contexts.length; ++i) {
+            Context context = contexts[i];
+            elements[i] = new Object[context.getLength()];
+            for (int j = 0; j < context.getLength(); ++j) {
+                elements[i][j] = context.getElementAt(j);
+            }
+            parents[i] = factory.intern((ListContext<?>) ListContext.make(
+                    Arrays.copyOf(elements[i], Math.max(elements[i].length - 1, 0))));
+        }
+    }
+
+    /**
+     * Makes the contexts without interning them.
+     */
+    @Benchmark
+    public void make(Blackhole bh) {
+        for (Object[] e : elements) {
+            bh.consume(ListContext.make(e));
+        }
+    }
+
+    /**
+     * Appends the last element of each context to its interned parent,
+     * as context selectors do for callees.
+     */
+    @Benchmark
+    public void append(Blackhole bh) {
+        for (int i = 0; i < elements.length; ++i) {
+            int length = elements[i].length;
+            if (length > 0) {
+                bh.consume(ListContext.append(parents[i],
+                        elements[i][length - 1], length));
+            }
+        }
+    }
+
+    @Benchmark
+    public void hash(Blackhole bh) {
+        Set<Context> set = new HashSet<>();
+        for (Context context : contexts) {
+            bh.consume(set.add(context));
+        }
+    }
+}
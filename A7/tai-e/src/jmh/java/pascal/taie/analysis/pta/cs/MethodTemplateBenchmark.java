@@ -0,0 +1,233 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StmtVisitor;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the cost of instantiating the constraints of methods under
+ * new contexts via {@link MethodTemplate} with the cost of visiting
+ * their statements via a {@link StmtVisitor}, as {@code Solver.StmtProcessor}
+ * is meant to. Both are instantiated here on their own, so the comparison does
+ * not depend on the solver.
+ * The methods are the application methods of a test program
+ * of constant propagation with alias analysis.
+ */
+@State(Scope.Benchmark)
+public class MethodTemplateBenchmark {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
+
+    @Param({"ObjSens", "Interprocedural2", "InstanceField", "ArrayLoops"})
+    public String program;
+
+    @Param({"1000"})
+    public int contexts;
+
+    private HeapModel heapModel;
+
+    private List<JMethod> methods;
+
+    @Setup
+    public void setup() {
+        Main.buildWorld("-pp", "-cp", CLASS_PATH, "-m", program);
+        heapModel = new AllocationSiteBasedModel(new AnalysisOptions(Map.of(
+                "merge-string-constants", false,
+                "merge-string-objects", false,
+                "merge-string-builders", false,
+                "merge-exception-objects", true)));
+        methods = World.get().getClassHierarchy()
+                .applicationClasses()
+                .flatMap(c -> c.getDeclaredMethods().stream())
+                .filter(m -> !m.isAbstract() && !m.isNative())
+                .toList();
+        int visited = visitor();
+        int instantiated = template();
+        if (instantiated != visited) {
+            throw new AssertionError("Template instantiated " +
+                    instantiated + " constraints, but visitor found " + visited);
+        }
+    }
+
+    @Benchmark
+    public int visitor() {
+        CSManager csManager = new MapBasedCSManager();
+        Counter counter = new Counter();
+        for (int i = 0; i < contexts; ++i) {
+            Context context = ListContext.make(i);
+            for (JMethod method : methods) {
+                Visitor visitor = new Visitor(context, csManager, heapModel, counter);
+                for (Stmt stmt : method.getIR()) {
+                    stmt.accept(visitor);
+                }
+            }
+        }
+        return counter.constraints;
+    }
+
+    /**
+     * Compiles the templates and instantiates them, so the cost of
+     * compilation is amortized over the contexts.
+     */
+    @Benchmark
+    public int template() {
+        CSManager csManager = new MapBasedCSManager();
+        Counter counter = new Counter();
+        MethodTemplate[] templates = new MethodTemplate[methods.size()];
+        for (int j = 0; j < templates.length; ++j) {
+            templates[j] = MethodTemplate.compile(methods.get(j), heapModel, csManager);
+        }
+        for (int i = 0; i < contexts; ++i) {
+            Context context = ListContext.make(i);
+            for (MethodTemplate template : templates) {
+                template.instantiate(context, csManager, counter);
+            }
+        }
+        return counter.constraints;
+    }
+
+    /**
+     * Counts instantiated constraints, so that the work is not optimized away.
+     */
+    private static class Counter implements MethodTemplate.Handler {
+
+        private int constraints;
+
+        @Override
+        public void onNew(CSVar lhs, Obj obj) {
+            ++constraints;
+        }
+
+        @Override
+        public void onCopy(CSVar source, CSVar target) {
+            ++constraints;
+        }
+
+        @Override
+        public void onStaticLoad(StaticField field, CSVar lhs) {
+            ++constraints;
+        }
+
+        @Override
+        public void onStaticStore(CSVar rhs, StaticField field) {
+            ++constraints;
+        }
+
+        @Override
+        public void onStaticCall(CSCallSite callSite) {
+            ++constraints;
+        }
+    }
+
+    /**
+     * The visitor-based instantiation of the constraints of a method.
+     */
+    private static class Visitor implements StmtVisitor<Void> {
+
+        private final Context context;
+
+        private final CSManager csManager;
+
+        private final HeapModel heapModel;
+
+        private final MethodTemplate.Handler handler;
+
+        private Visitor(Context context, CSManager csManager,
+                        HeapModel heapModel, MethodTemplate.Handler handler) {
+            this.context = context;
+            this.csManager = csManager;
+            this.heapModel = heapModel;
+            this.handler = handler;
+        }
+
+        @Override
+        public Void visit(New stmt) {
+            handler.onNew(csManager.getCSVar(context, stmt.getLValue()),
+                    heapModel.getObj(stmt));
+            return null;
+        }
+
+        @Override
+        public Void visit(Copy stmt) {
+            handler.onCopy(csManager.getCSVar(context, stmt.getRValue()),
+                    csManager.getCSVar(context, stmt.getLValue()));
+            return null;
+        }
+
+        @Override
+        public Void visit(LoadField stmt) {
+            if (stmt.isStatic()) {
+                handler.onStaticLoad(
+                        csManager.getStaticField(stmt.getFieldRef().resolve()),
+                        csManager.getCSVar(context, stmt.getLValue()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(StoreField stmt) {
+            if (stmt.isStatic()) {
+                handler.onStaticStore(
+                        csManager.getCSVar(context, stmt.getRValue()),
+                        csManager.getStaticField(stmt.getFieldRef().resolve()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Invoke stmt) {
+            if (stmt.isStatic()) {
+                handler.onStaticCall(csManager.getCSCallSite(context, stmt));
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+
+/**
+ * Benchmarks of {@link PointerFlowGraph} on the PFG edges of a snapshot.
+ */
+@State(Scope.Benchmark)
+public class PointerFlowGraphBenchmark {
+
+    @Param({"TwoObject", "TwoCall", "TwoType", "StoreLoad"})
+    public String program;
+
+    private Pointer[][] edges;
+
+    private Pointer[] nodes;
+
+    private PointerFlowGraph pointerFlowGraph;
+
+    @Setup
+    public void setup() {
+        PTASnapshot snapshot = PTASnapshot.capture(program);
+        edges = snapshot.edges.toArray(new Pointer[0][]);
+        pointerFlowGraph = new PointerFlowGraph();
+        for (Pointer[] edge : edges) {
+            pointerFlowGraph.addEdge(edge[0], edge[1]);
+        }
+        nodes = pointerFlowGraph.getNodes().toArray(new Pointer[0]);
+    }
+
+    @Benchmark
+    public void addEdge(Blackhole bh) {
+        PointerFlowGraph pfg = new PointerFlowGraph();
+        for (Pointer[] edge : edges) {
+            bh.consume(pfg.addEdge(edge[0], edge[1]));
+        }
+    }
+
+    @Benchmark
+    public void getSuccsOf(Blackhole bh) {
+        for (Pointer node : nodes) {
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(node)) {
+                bh.consume(succ);
+            }
+        }
+    }
+}
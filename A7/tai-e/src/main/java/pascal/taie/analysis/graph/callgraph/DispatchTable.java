@@ -0,0 +1,127 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of virtual method dispatch, i.e., the target method
+ * of each (receiver type, method subsignature) pair. The table is filled
+ * lazily, shared by all call graph builders and pointer analyses of
+ * the current world, and safe for concurrent use.
+ */
+public final class DispatchTable {
+
+    /**
+     * Map from receiver type to the map from subsignature to the
+     * dispatched method. Failed dispatch is cached as an empty Optional.
+     */
+    private static final Map<Type, Map<Subsignature, Optional<JMethod>>> table
+            = Maps.newConcurrentMap();
+
+    private static final LongAdder hits = new LongAdder();
+
+    private static final LongAdder misses = new LongAdder();
+
+    static {
+        World.registerResetCallback(DispatchTable::clear);
+    }
+
+    private DispatchTable() {
+    }
+
+    /**
+     * Resolves the callee of a call site with the type of receiver object.
+     * The targets of virtual and interface calls are looked up in this table.
+     *
+     * @param type     type of the receiver object. If the call site is
+     *                 static, this parameter is ignored (i.e., can be null).
+     * @param callSite the call site to be resolved.
+     * @return the resolved callee, or null if it cannot be resolved.
+     */
+    public static JMethod resolveCallee(Type type, Invoke callSite) {
+        if (callSite.isInterface() || callSite.isVirtual()) {
+            MethodRef methodRef = callSite.getMethodRef();
+            return dispatch(type, methodRef.getSubsignature(), () ->
+                    World.get().getClassHierarchy().dispatch(type, methodRef));
+        } else if (callSite.isSpecial() || callSite.isStatic()) {
+            return callSite.getMethodRef().resolveNullable();
+        } else {
+            throw new AnalysisException("Cannot resolve Invoke: " + callSite);
+        }
+    }
+
+    /**
+     * @return the method dispatched for given receiver type and subsignature.
+     * If the pair is not in this table, computes the method by given
+     * resolver and caches the result.
+     */
+    public static JMethod dispatch(Type type, Subsignature subsignature,
+                                   Supplier<JMethod> resolver) {
+        Map<Subsignature, Optional<JMethod>> methods = table.computeIfAbsent(
+                type, t -> Maps.newConcurrentMap());
+        Optional<JMethod> method = methods.get(subsignature);
+        if (method != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            // the resolver may dispatch recursively, thus it is not
+            // called inside computeIfAbsent()
+            method = Optional.ofNullable(resolver.get());
+            methods.putIfAbsent(subsignature, method);
+        }
+        return method.orElse(null);
+    }
+
+    /**
+     * @return the number of lookups answered by this table.
+     */
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to resolve the target method.
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    private static void clear() {
+        table.clear();
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -31,20 +31,44 @@ import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
-import pascal.taie.util.collection.Views;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
 /**
  * Represents context-sensitive call graph.
+ * Modifications of the call graph are synchronized, so that
+ * it can be built by parallel pointer analysis.
+ * <p>
+ * The call sites of each reachable method are collected once when the
+ * method is added, and the number of edges is counted as edges are added,
+ * so queries on the call graph do not scan the IR again.
+ * The callers of each method and the callees of each call site are
+ * kept as compact arrays, built on first query and rebuilt only for the
+ * method and the call site of an added edge.
  */
 public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     private final CSManager csManager;
 
+    private int edgeCount = 0;
+
+    /**
+     * Caches of {@link #getCallerArray(CSMethod)} and
+     * {@link #getCalleeArray(CSCallSite)}. Adding an edge removes only
+     * the entries of its call site and its callee.
+     */
+    private final Map<CSMethod, CSCallSite[]> callers = Maps.newMap();
+
+    private final Map<CSCallSite, CSMethod[]> callees = Maps.newMap();
+
     public CSCallGraph(CSManager csManager) {
         this.csManager = csManager;
     }
@@ -52,7 +76,7 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
     /**
      * Adds an entry method to this call graph.
      */
-    public void addEntryMethod(CSMethod entryMethod) {
+    public synchronized void addEntryMethod(CSMethod entryMethod) {
         entryMethods.add(entryMethod);
     }
 
@@ -62,10 +86,12 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * @return true if this call graph changed as a result of the call,
      * otherwise false.
      */
-    public boolean addReachableMethod(CSMethod csMethod) {
+    public synchronized boolean addReachableMethod(CSMethod csMethod) {
         if (reachableMethods.add(csMethod)) {
-            callSitesIn(csMethod).forEach(csCallSite ->
-                    csCallSite.setContainer(csMethod));
+            for (CSCallSite csCallSite : collectCallSites(csMethod)) {
+                csCallSite.setContainer(csMethod);
+                callSitesIn.put(csMethod, csCallSite);
+            }
             return true;
         } else {
             return false;
@@ -79,9 +105,12 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
      * @return true if the call graph changed as a result of the call,
      * otherwise false.
      */
-    public boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
+    public synchronized boolean addEdge(Edge<CSCallSite, CSMethod> edge) {
         if (edge.getCallSite().addEdge(edge)) {
             edge.getCallee().addEdge(edge);
+            ++edgeCount;
+            callers.remove(edge.getCallee());
+            callees.remove(edge.getCallSite());
             return true;
         } else {
             return false;
@@ -90,12 +119,38 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     @Override
     public Set<CSCallSite> getCallersOf(CSMethod callee) {
-        return Views.toMappedSet(callee.getEdges(), Edge::getCallSite);
+        return new ArrayView<>(getCallerArray(callee));
     }
 
     @Override
     public Set<CSMethod> getCalleesOf(CSCallSite csCallSite) {
-        return Views.toMappedSet(csCallSite.getEdges(), Edge::getCallee);
+        return new ArrayView<>(getCalleeArray(csCallSite));
+    }
+
+    /**
+     * @return the distinct call sites calling given method, as an array.
+     * The array is cached until an edge to the method is added, and must
+     * not be modified by callers.
+     */
+    public synchronized CSCallSite[] getCallerArray(CSMethod callee) {
+        return callers.computeIfAbsent(callee, m -> {
+            Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
+            m.getEdges().forEach(e -> callSites.add(e.getCallSite()));
+            return callSites.toArray(new CSCallSite[0]);
+        });
+    }
+
+    /**
+     * @return the distinct methods called by given call site, as an array.
+     * The array is cached until an edge from the call site is added, and
+     * must not be modified by callers.
+     */
+    public synchronized CSMethod[] getCalleeArray(CSCallSite csCallSite) {
+        return callees.computeIfAbsent(csCallSite, cs -> {
+            Set<CSMethod> methods = Sets.newHybridOrderedSet();
+            cs.getEdges().forEach(e -> methods.add(e.getCallee()));
+            return methods.toArray(new CSMethod[0]);
+        });
     }
 
     @Override
@@ -105,6 +160,11 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     @Override
     public Set<CSCallSite> getCallSitesIn(CSMethod csMethod) {
+        return contains(csMethod) ?
+                callSitesIn.get(csMethod) : collectCallSites(csMethod);
+    }
+
+    private Set<CSCallSite> collectCallSites(CSMethod csMethod) {
         JMethod method = csMethod.getMethod();
         Context context = csMethod.getContext();
         Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
@@ -129,11 +189,16 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     @Override
     public Stream<Edge<CSCallSite, CSMethod>> edges() {
-        return reachableMethods.stream()
-                .flatMap(this::callSitesIn)
+        return callSitesIn.values()
+                .stream()
                 .flatMap(this::edgesOutOf);
     }
 
+    @Override
+    public synchronized int getNumberOfEdges() {
+        return edgeCount;
+    }
+
     @Override
     public boolean isRelevant(Stmt stmt) {
         throw new UnsupportedOperationException();
@@ -143,4 +208,26 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
     public Set<CSMethod> getResult(Stmt stmt) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Unmodifiable set view of an array of distinct elements.
+     */
+    private static final class ArrayView<E> extends AbstractSet<E> {
+
+        private final E[] elements;
+
+        private ArrayView(E[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Arrays.asList(elements).iterator();
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
 }
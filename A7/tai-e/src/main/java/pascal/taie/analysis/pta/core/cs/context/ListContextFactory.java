@@ -0,0 +1,102 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import javax.annotation.Nullable;
+
+/**
+ * Interns {@link ListContext}s in a trie, so that equal contexts
+ * are the same object and each of them has a dense integer id,
+ * which can be used to index context-sensitive elements.
+ * <p>
+ * Each factory is owned by one analysis, thus the contexts, as well as
+ * their ids, are released together with the analysis that created them.
+ * While the analysis runs, its factory is the current factory, which
+ * interns the contexts made by {@link ListContext#make}, so that the
+ * contexts of the context selectors are interned without passing
+ * the factory to them.
+ */
+public class ListContextFactory {
+
+    /**
+     * The factory of the running analysis, or null if no analysis runs.
+     */
+    private static volatile ListContextFactory current;
+
+    /**
+     * The empty context, i.e., the root of the trie.
+     */
+    private final ListContext<?> root = new ListContext<>(null, null, this, 0);
+
+    /**
+     * Number of contexts interned by this factory.
+     */
+    private int counter = 1;
+
+    /**
+     * Sets the factory of the running analysis, which should be reset
+     * to null when the analysis finishes.
+     */
+    public static void setCurrent(@Nullable ListContextFactory factory) {
+        current = factory;
+    }
+
+    static @Nullable ListContextFactory getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return the interned empty context.
+     */
+    public Context getEmptyContext() {
+        return root;
+    }
+
+    /**
+     * @return the interned context that is equal to given context.
+     */
+    public <T> ListContext<T> intern(ListContext<T> context) {
+        if (context.factory == this) {
+            return context;
+        }
+        T[] elements = context.getElements();
+        return ListContext.extend(getRoot(), elements, elements.length);
+    }
+
+    /**
+     * @return the id of given context. The ids are dense, and the id of
+     * the empty context is 0.
+     */
+    public int getId(ListContext<?> context) {
+        return intern(context).getId();
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> ListContext<T> getRoot() {
+        return (ListContext<T>) root;
+    }
+
+    synchronized int nextId() {
+        return counter++;
+    }
+}
@@ -32,6 +32,12 @@ public class CSObj extends AbstractCSElement {
 
     private final Obj obj;
 
+    /**
+     * Dense index of this object, assigned by {@link CSObjIndexer}.
+     * -1 means that the object has not been indexed yet.
+     */
+    int index = -1;
+
     CSObj(Obj obj, Context context) {
         super(context);
         this.obj = obj;
@@ -22,19 +22,29 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
+import pascal.taie.analysis.pta.core.cs.selector.CachingContextSelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
+import pascal.taie.analysis.pta.core.cs.selector.SelectiveContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
+import pascal.taie.analysis.pta.toolkit.scaler.Scaler;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.Strings;
+import pascal.taie.util.collection.Maps;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.Map;
 
 /**
  * Context-sensitive pointer analysis.
@@ -43,23 +53,161 @@ public class CSPTA extends ProgramAnalysis {
 
     public static final String ID = "cspta";
 
+    private static final Logger logger = LogManager.getLogger(CSPTA.class);
+
     public CSPTA(AnalysisConfig config) {
         super(config);
     }
 
+    /**
+     * Solves the analysis, or returns a {@link DemandPointsToResult}
+     * if option "demand" is true, which computes the points-to sets
+     * when clients query them, so the result is not processed
+     * (i.e., dumped or compared) by {@link ResultProcessor}.
+     */
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
-        Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
-                getContextSelector(options.getString("cs")));
-        solver.solve();
-        PointerAnalysisResult result = solver.getResult();
+        if (options.getBooleanOrDefault("demand", false)) {
+            logger.info("Points-to sets are computed on demand");
+            return new DemandPointsToResult(options);
+        }
+        ResultCache cache = ResultCache.of(options);
+        PointerAnalysisResult result = cache != null ?
+                cache.load(new AllocationSiteBasedModel(options)) : null;
+        if (result == null) {
+            result = solve(options);
+            if (cache != null) {
+                cache.store(result);
+            }
+        }
         ResultProcessor.process(options, result);
         return result;
     }
 
-    private static ContextSelector getContextSelector(String cs) {
+    /**
+     * Solves the analysis. If option "compact-result" is true, the result
+     * is frozen by {@link Solver#compact()} to save memory for the
+     * analyses which run after pointer analysis.
+     */
+    private static PointerAnalysisResult solve(AnalysisOptions options) {
+        boolean skipSingletons = options.getBooleanOrDefault(
+                "skip-singleton-contexts", false);
+        PreAnalysis preAnalysis = skipSingletons ||
+                options.getBooleanOrDefault("ci-pre-analysis", false) ?
+                PreAnalysis.run(options) : null;
+        String cs = options.getString("cs");
+        ContextSelector selector = cs.equals("scaler") ?
+                getScalerSelector(options, preAnalysis) : getContextSelector(cs);
+        if (skipSingletons) {
+            selector = preAnalysis.skipSingletons(selector);
+        }
+        int cacheSize = options.get("selector-cache") != null ?
+                options.getInt("selector-cache") : 0;
+        CachingContextSelector cachingSelector = null;
+        if (cacheSize > 0) {
+            cachingSelector = new CachingContextSelector(selector, cacheSize,
+                    cs.endsWith("call") || cs.equals("scaler"));
+            selector = cachingSelector;
+        }
+        Budget budget = Budget.of(options);
+        DegradingContextSelector degradingSelector = null;
+        if (budget != null) {
+            // outermost, so that cached contexts are degraded as well
+            degradingSelector = new DegradingContextSelector(selector, budget);
+            selector = degradingSelector;
+        }
+        String stateFile = options.getString("incremental-state");
+        long start = System.nanoTime();
+        Solver solver;
+        if (stateFile != null) {
+            solver = solveIncrementally(options, selector, preAnalysis, Path.of(stateFile));
+        } else {
+            solver = newSolver(options, selector, preAnalysis);
+            solver.solve();
+        }
+        if (preAnalysis != null) {
+            preAnalysis.logSavings(System.nanoTime() - start, skipSingletons);
+        }
+        if (cachingSelector != null) {
+            logger.info("Context selector cache: {} hits, {} misses",
+                    cachingSelector.getHits(), cachingSelector.getMisses());
+        }
+        if (degradingSelector != null) {
+            degradingSelector.logDegradedMethods();
+        }
+        return options.getBooleanOrDefault("compact-result", false) ?
+                solver.compact() : solver.getResult();
+    }
+
+    /**
+     * Solves the analysis from the solver state saved in given file by
+     * a previous run, after the classes given by option "changed-classes"
+     * changed, and then saves the new state to the file. If there is no
+     * saved state, or it cannot be restored, solves the analysis from scratch.
+     */
+    private static Solver solveIncrementally(
+            AnalysisOptions options, ContextSelector selector,
+            @Nullable PreAnalysis preAnalysis, Path stateFile) {
+        Solver.checkIncremental(options);
+        SolverState previous = SolverState.read(stateFile);
+        Solver solver = null;
+        if (previous != null) {
+            solver = newSolver(options, selector, preAnalysis);
+            try {
+                solver.solve(previous, SolverState.getChangedClasses(
+                        options.getString("changed-classes")));
+            } catch (IllegalStateException e) {
+                logger.warn("Failed to solve incrementally from {}, solving from scratch: {}",
+                        stateFile, e.getMessage());
+                solver = null;
+            }
+        }
+        if (solver == null) {
+            solver = newSolver(options, selector, preAnalysis);
+            solver.solve();
+        }
+        try {
+            solver.getState().write(stateFile);
+        } catch (UnsupportedOperationException e) {
+            logger.warn("Failed to save solver state to {}: {}", stateFile, e.getMessage());
+        }
+        return solver;
+    }
+
+    private static Solver newSolver(AnalysisOptions options, ContextSelector selector,
+                                    @Nullable PreAnalysis preAnalysis) {
+        Solver solver = new Solver(options, new AllocationSiteBasedModel(options), selector);
+        if (preAnalysis != null) {
+            solver.setPreAnalysis(preAnalysis);
+        }
+        return solver;
+    }
+
+    /**
+     * Runs a context-insensitive pre-analysis, unless given one has run,
+     * and uses Scaler to select a context sensitivity variant for each
+     * method. Option "scaler-tst" specifies the threshold of total
+     * scalability (TST) of Scaler, i.e., the budget of the sum of
+     * the context-sensitive points-to sizes of all methods.
+     *
+     * @return the selector which applies the selected variant to each method.
+     */
+    private static ContextSelector getScalerSelector(
+            AnalysisOptions options, @Nullable PreAnalysis preAnalysis) {
+        PointerAnalysisResult preResult = (preAnalysis != null ?
+                preAnalysis : PreAnalysis.run(options)).getResult();
+        Map<JMethod, String> variants = options.get("scaler-tst") != null ?
+                new Scaler(preResult, options.getInt("scaler-tst")).selectContext() :
+                new Scaler(preResult).selectContext();
+        Map<String, ContextSelector> variantSelectors = Maps.newMap();
+        Map<JMethod, ContextSelector> selectors = Maps.newMap(variants.size());
+        variants.forEach((method, variant) -> selectors.put(method,
+                variantSelectors.computeIfAbsent(variant, CSPTA::getContextSelector)));
+        return new SelectiveContextSelector(selectors, new CISelector());
+    }
+
+    static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
         } else {
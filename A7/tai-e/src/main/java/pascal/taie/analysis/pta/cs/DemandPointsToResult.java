@@ -0,0 +1,211 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AbstractResultHolder;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Pointer analysis result which computes the points-to sets on demand
+ * by {@link DemandSolver}, when they are queried for the first time.
+ * <p>
+ * The answers are context-insensitive: the contexts of queried
+ * {@link CSVar}s are ignored, and the elements of this result are all
+ * under the empty context. The collections of elements (e.g.,
+ * {@link #getCSVars()}) and the call graphs contain the elements
+ * computed by the queries so far, instead of the whole program.
+ */
+public class DemandPointsToResult extends AbstractResultHolder
+        implements PointerAnalysisResult {
+
+    private final CSManager csManager = new MapBasedCSManager();
+
+    private final CSCallGraph callGraph = new CSCallGraph(csManager);
+
+    private final Context emptyContext = ListContext.make();
+
+    private final DemandSolver solver;
+
+    /**
+     * Creates a result for the current world. Option "demand-budget"
+     * gives the maximum number of variables explored for a query.
+     * The answers are kept in the default points-to sets, as they are
+     * computed after any solver finishes, e.g., by the analyses which
+     * query this result.
+     */
+    public DemandPointsToResult(AnalysisOptions options) {
+        int budget = options.get("demand-budget") != null ?
+                options.getInt("demand-budget") : 0;
+        solver = new DemandSolver(new AllocationSiteBasedModel(options),
+                budget, this::addAnswer, this::addCallEdge);
+        CSMethod main = getCSMethod(World.get().getMainMethod());
+        callGraph.addEntryMethod(main);
+        callGraph.addReachableMethod(main);
+    }
+
+    private CSMethod getCSMethod(JMethod method) {
+        return csManager.getCSMethod(emptyContext, method);
+    }
+
+    private CSObj getCSObj(Obj obj) {
+        return csManager.getCSObj(emptyContext, obj);
+    }
+
+    /**
+     * Records the answer of a pointer of {@link DemandSolver}
+     * as the points-to set of its context-sensitive pointer.
+     */
+    private void addAnswer(Object node, Set<Obj> answer) {
+        Pointer pointer;
+        if (node instanceof Var var) {
+            pointer = csManager.getCSVar(emptyContext, var);
+        } else if (node instanceof DemandSolver.StaticNode s) {
+            pointer = csManager.getStaticField(s.field());
+        } else if (node instanceof DemandSolver.FieldNode f) {
+            pointer = csManager.getInstanceField(getCSObj(f.base()), f.field());
+        } else {
+            pointer = csManager.getArrayIndex(
+                    getCSObj(((DemandSolver.ArrayNode) node).array()));
+        }
+        PointsToSet pts = PointsToSetFactory.make();
+        answer.forEach(obj -> pts.addObject(getCSObj(obj)));
+        pointer.setPointsToSet(pts);
+    }
+
+    private void addCallEdge(Invoke callSite, JMethod callee) {
+        CSMethod caller = getCSMethod(callSite.getContainer());
+        CSMethod csCallee = getCSMethod(callee);
+        callGraph.addReachableMethod(caller);
+        callGraph.addReachableMethod(csCallee);
+        CSCallSite csCallSite = csManager.getCSCallSite(emptyContext, callSite);
+        callGraph.addEdge(new Edge<>(CallGraphs.getCallKind(callSite),
+                csCallSite, csCallee));
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return csManager.getCSVars();
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return csManager.getVars();
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return csManager.getInstanceFields();
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return csManager.getArrayIndexes();
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return csManager.getStaticFields();
+    }
+
+    @Override
+    public Collection<CSObj> getCSObjects() {
+        return csManager.getObjects();
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return csManager.getObjects()
+                .stream()
+                .map(CSObj::getObject)
+                .distinct()
+                .toList();
+    }
+
+    @Override
+    public Set<CSObj> getPointsToSet(CSVar csVar) {
+        Var var = csVar.getVar();
+        if (solver.query(var).isEmpty()) {
+            return Set.of();
+        }
+        return csManager.getCSVar(emptyContext, var).getPointsToSet().getObjects();
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        return solver.query(var);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        return solver.query(base, field);
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        return solver.query(field);
+    }
+
+    @Override
+    public CallGraph<CSCallSite, CSMethod> getCSCallGraph() {
+        return callGraph;
+    }
+
+    /**
+     * @return the context-insensitive call graph of the edges resolved
+     * so far. The call graph is built on each call, as it grows with queries.
+     */
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return new PointerAnalysisResultImpl(csManager, callGraph).getCallGraph();
+    }
+}
@@ -0,0 +1,644 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.InvokeInstanceExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.FieldStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.classes.Subsignature;
+import pascal.taie.language.type.ReferenceType;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Demand-driven, context-insensitive points-to analysis, which answers
+ * the points-to queries of single variables and fields.
+ * <p>
+ * Points-to information of a variable is the CFL-reachability of the
+ * variable from allocations on the PFG, where field stores and loads
+ * must be matched. For each query, the solver first explores the PFG
+ * backwards from the queried pointer on the fly, i.e., it collects
+ * the variables which may flow to the pointer, together with the stores
+ * of the fields loaded by them and the call sites of their methods.
+ * Then it propagates objects on the explored part only, which matches
+ * stores and loads by the objects of their base variables, and resolves
+ * calls by the objects of their receiver variables. The explored part
+ * is closed under the incoming edges of its pointers, so the answers of
+ * all its pointers are complete, and they are cached: later queries stop
+ * exploring at the cached pointers, and start propagation from their
+ * answers.
+ * <p>
+ * Stores and call sites are looked up in the methods reachable from
+ * the main method in the call graph built by class hierarchy analysis.
+ * If exploring a query visits more variables than the budget given by
+ * option "demand-budget", the query is answered conservatively by all
+ * objects allocated in these methods whose types are compatible with
+ * the queried pointer.
+ */
+class DemandSolver {
+
+    private static final Logger logger = LogManager.getLogger(DemandSolver.class);
+
+    /**
+     * Default maximum number of variables explored for a query.
+     */
+    private static final int DEFAULT_BUDGET = 100_000;
+
+    // nodes of the PFG besides variables
+
+    record StaticNode(JField field) {
+    }
+
+    record FieldNode(Obj base, JField field) {
+    }
+
+    record ArrayNode(Obj array) {
+    }
+
+    private final HeapModel heapModel;
+
+    private final int budget;
+
+    private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+    private final TypeSystem typeSystem = World.get().getTypeSystem();
+
+    /**
+     * Cached answers of the pointers, i.e., variables and the nodes above.
+     */
+    private final Map<Object, Set<Obj>> answers = Maps.newMap();
+
+    /**
+     * Fields whose stores have been explored, thus the answers of their
+     * nodes are complete: missing nodes point to nothing.
+     */
+    private final Set<JField> completeFields = Sets.newSet();
+
+    private boolean arraysComplete;
+
+    /**
+     * Receives the answers when they are cached.
+     */
+    private final BiConsumer<Object, Set<Obj>> answerHandler;
+
+    /**
+     * Receives the call edges resolved by the queries.
+     */
+    private final BiConsumer<Invoke, JMethod> callEdgeHandler;
+
+    // scope of the analysis, built on the first query
+
+    private boolean scopeBuilt;
+
+    private final List<Obj> allocations = new ArrayList<>();
+
+    private final Map<JField, List<StoreField>> fieldStores = Maps.newMap();
+
+    private final List<StoreArray> arrayStores = new ArrayList<>();
+
+    private final Map<JMethod, List<Invoke>> callers = Maps.newMap();
+
+    private final Map<Invoke, Set<JMethod>> callees = Maps.newMap();
+
+    private final Map<Pair<JClass, Subsignature>, Set<JMethod>> chaTargets = Maps.newMap();
+
+    /**
+     * Map from a variable to the statements which define it.
+     */
+    private final Map<Var, List<Stmt>> definitions = Maps.newMap();
+
+    private final Set<JMethod> indexedMethods = Sets.newSet();
+
+    /**
+     * @param budget maximum number of variables explored for a query,
+     *               or a non-positive number for the default budget.
+     */
+    DemandSolver(HeapModel heapModel, int budget,
+                 BiConsumer<Object, Set<Obj>> answerHandler,
+                 BiConsumer<Invoke, JMethod> callEdgeHandler) {
+        this.heapModel = heapModel;
+        this.budget = budget > 0 ? budget : DEFAULT_BUDGET;
+        this.answerHandler = answerHandler;
+        this.callEdgeHandler = callEdgeHandler;
+    }
+
+    /**
+     * @return the objects pointed to by given variable.
+     */
+    Set<Obj> query(Var var) {
+        Set<Obj> answer = answers.get(var);
+        if (answer == null) {
+            if (!(var.getType() instanceof ReferenceType)) {
+                return Set.of();
+            }
+            Slice slice = new Slice();
+            slice.add(var);
+            if (slice.explore()) {
+                slice.solve();
+                answer = answers.get(var);
+            } else {
+                answer = fallback(var.getType());
+                cache(var, answer);
+                logger.debug("Budget exceeded, answering {} conservatively", var);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * @return the objects pointed to by given static field.
+     */
+    Set<Obj> query(JField field) {
+        if (!completeFields.contains(field)) {
+            Slice slice = new Slice();
+            slice.addField(field);
+            if (!slice.explore()) {
+                return fallback(field.getType());
+            }
+            slice.solve();
+        }
+        return answers.getOrDefault(new StaticNode(field), Set.of());
+    }
+
+    /**
+     * @return the objects pointed to by given instance field of the
+     * objects pointed to by given variable.
+     */
+    Set<Obj> query(Var base, JField field) {
+        Set<Obj> bases = query(base);
+        if (!completeFields.contains(field)) {
+            Slice slice = new Slice();
+            slice.addField(field);
+            if (!slice.explore()) {
+                return fallback(field.getType());
+            }
+            slice.solve();
+        }
+        Set<Obj> result = Sets.newHybridSet();
+        bases.forEach(o -> result.addAll(
+                answers.getOrDefault(new FieldNode(o, field), Set.of())));
+        return result;
+    }
+
+    private void cache(Object node, Set<Obj> answer) {
+        answers.put(node, answer);
+        answerHandler.accept(node, answer);
+    }
+
+    /**
+     * @return the conservative answer for pointers of given type.
+     */
+    private Set<Obj> fallback(Type type) {
+        Set<Obj> result = Sets.newHybridSet();
+        for (Obj obj : allocations) {
+            if (typeSystem.isSubtype(type, obj.getType())) {
+                result.add(obj);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the allocations, stores and call sites of the methods
+     * reachable from the main method by class hierarchy analysis.
+     */
+    private void buildScope() {
+        if (scopeBuilt) {
+            return;
+        }
+        scopeBuilt = true;
+        Set<JMethod> reachable = Sets.newSet();
+        Deque<JMethod> queue = new ArrayDeque<>();
+        queue.add(World.get().getMainMethod());
+        while (!queue.isEmpty()) {
+            JMethod method = queue.poll();
+            if (!reachable.add(method) || method.isAbstract() || method.isNative()) {
+                continue;
+            }
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof New newStmt) {
+                    allocations.add(heapModel.getObj(newStmt));
+                } else if (stmt instanceof StoreField store) {
+                    append(fieldStores, store.getFieldRef().resolve(), store);
+                } else if (stmt instanceof StoreArray store) {
+                    arrayStores.add(store);
+                } else if (stmt instanceof Invoke invoke && !invoke.isDynamic()) {
+                    Set<JMethod> targets = resolveTargets(invoke);
+                    callees.put(invoke, targets);
+                    for (JMethod target : targets) {
+                        append(callers, target, invoke);
+                        queue.add(target);
+                    }
+                }
+            }
+        }
+        logger.info("Demand-driven points-to analysis: {} methods in scope",
+                reachable.size());
+    }
+
+    /**
+     * @return the possible callees of given call site by class hierarchy analysis.
+     */
+    private Set<JMethod> resolveTargets(Invoke invoke) {
+        if (invoke.isStatic() || invoke.isSpecial()) {
+            JMethod callee = DispatchTable.resolveCallee(null, invoke);
+            return callee != null ? Set.of(callee) : Set.of();
+        }
+        JClass declaringClass = invoke.getMethodRef().getDeclaringClass();
+        return chaTargets.computeIfAbsent(
+                new Pair<>(declaringClass, invoke.getMethodRef().getSubsignature()), unused -> {
+                    Set<JMethod> targets = Sets.newHybridSet();
+                    Set<JClass> classes = Sets.newSet();
+                    classes.add(declaringClass);
+                    classes.addAll(hierarchy.getAllSubclassesOf(declaringClass, true));
+                    for (JClass jclass : classes) {
+                        if (!jclass.isAbstract()) {
+                            JMethod callee = DispatchTable.resolveCallee(
+                                    jclass.getType(), invoke);
+                            if (callee != null && !callee.isAbstract()) {
+                                targets.add(callee);
+                            }
+                        }
+                    }
+                    return targets;
+                });
+    }
+
+    private List<Stmt> getDefinitions(Var var) {
+        JMethod method = var.getMethod();
+        if (indexedMethods.add(method)) {
+            for (Stmt stmt : method.getIR()) {
+                if (stmt instanceof New || stmt instanceof Copy ||
+                        stmt instanceof LoadField || stmt instanceof LoadArray ||
+                        (stmt instanceof Invoke invoke && invoke.getResult() != null)) {
+                    stmt.getDef().ifPresent(lhs -> append(definitions, (Var) lhs, stmt));
+                }
+            }
+        }
+        return definitions.getOrDefault(var, List.of());
+    }
+
+    private static Var getBase(FieldStmt<?, ?> stmt) {
+        return ((InstanceFieldAccess) stmt.getFieldAccess()).getBase();
+    }
+
+    private static @Nullable Var getBase(Invoke invoke) {
+        return invoke.getInvokeExp() instanceof InvokeInstanceExp exp ?
+                exp.getBase() : null;
+    }
+
+    private static <K, V> void append(Map<K, List<V>> map, K key, V value) {
+        map.computeIfAbsent(key, unused -> new ArrayList<>()).add(value);
+    }
+
+    /**
+     * The part of the PFG explored for a query.
+     */
+    private class Slice {
+
+        /**
+         * Variables whose incoming edges have been explored.
+         */
+        private final Set<Var> vars = Sets.newSet();
+
+        /**
+         * Variables whose answers are cached, so they are not explored.
+         */
+        private final Set<Var> cachedVars = Sets.newSet();
+
+        private final Set<JField> fields = Sets.newSet();
+
+        private boolean arrays;
+
+        private final Deque<Var> queue = new ArrayDeque<>();
+
+        private Slice() {
+            buildScope();
+        }
+
+        private void add(Var var) {
+            if (answers.containsKey(var)) {
+                cachedVars.add(var);
+            } else if (vars.add(var)) {
+                queue.add(var);
+            }
+        }
+
+        private void addField(JField field) {
+            if (!completeFields.contains(field) && fields.add(field)) {
+                for (StoreField store : fieldStores.getOrDefault(field, List.of())) {
+                    if (!field.isStatic()) {
+                        add(getBase(store));
+                    }
+                    add(store.getRValue());
+                }
+            }
+        }
+
+        private void addArrays() {
+            if (!arraysComplete && !arrays) {
+                arrays = true;
+                for (StoreArray store : arrayStores) {
+                    add(store.getArrayAccess().getBase());
+                    add(store.getRValue());
+                }
+            }
+        }
+
+        /**
+         * Explores the incoming edges of the variables in this slice.
+         *
+         * @return false if the budget is exceeded, otherwise true.
+         */
+        private boolean explore() {
+            while (!queue.isEmpty()) {
+                if (vars.size() > budget) {
+                    return false;
+                }
+                Var var = queue.poll();
+                for (Stmt stmt : getDefinitions(var)) {
+                    if (stmt instanceof Copy copy) {
+                        add(copy.getRValue());
+                    } else if (stmt instanceof LoadField load) {
+                        if (!load.isStatic()) {
+                            add(getBase(load));
+                        }
+                        addField(load.getFieldRef().resolve());
+                    } else if (stmt instanceof LoadArray load) {
+                        add(load.getArrayAccess().getBase());
+                        addArrays();
+                    } else if (stmt instanceof Invoke invoke) {
+                        Var base = getBase(invoke);
+                        if (base != null) {
+                            add(base);
+                        }
+                        for (JMethod callee : callees.getOrDefault(invoke, Set.of())) {
+                            callee.getIR().getReturnVars().forEach(this::add);
+                        }
+                    }
+                }
+                JMethod method = var.getMethod();
+                int index = method.getIR().getParams().indexOf(var);
+                if (index >= 0 || var.equals(method.getIR().getThis())) {
+                    for (Invoke callSite : callers.getOrDefault(method, List.of())) {
+                        Var base = getBase(callSite);
+                        if (base != null) {
+                            add(base);
+                        }
+                        if (index >= 0) {
+                            add(callSite.getInvokeExp().getArg(index));
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        // propagation on the explored part
+
+        private final Map<Object, Set<Obj>> pointsTo = Maps.newMap();
+
+        private final Map<Object, Set<Object>> succs = Maps.newMap();
+
+        private final Deque<Pair<Object, Set<Obj>>> workList = new ArrayDeque<>();
+
+        private final Set<Object> seeded = Sets.newSet();
+
+        // statements processed when the points-to sets of their base variables change
+
+        private final Map<Var, List<Pair<JField, Var>>> loads = Maps.newMap();
+
+        private final Map<Var, List<Pair<JField, Var>>> stores = Maps.newMap();
+
+        private final Map<Var, List<Var>> arrayLoads = Maps.newMap();
+
+        private final Map<Var, List<Var>> arrayStoreValues = Maps.newMap();
+
+        private final Map<Var, List<Invoke>> calls = Maps.newMap();
+
+        /**
+         * Map from a receiver variable to the call sites which pass
+         * objects to the "this" variables and parameters in this slice.
+         */
+        private final Map<Var, List<Pair<Invoke, Var>>> receivers = Maps.newMap();
+
+        private void solve() {
+            for (Var var : cachedVars) {
+                touch(var);
+            }
+            for (Var var : vars) {
+                touch(var);
+                for (Stmt stmt : getDefinitions(var)) {
+                    if (stmt instanceof New newStmt) {
+                        addEntry(var, Set.of(heapModel.getObj(newStmt)));
+                    } else if (stmt instanceof Copy copy) {
+                        addEdge(copy.getRValue(), var);
+                    } else if (stmt instanceof LoadField load) {
+                        JField field = load.getFieldRef().resolve();
+                        if (load.isStatic()) {
+                            addEdge(new StaticNode(field), var);
+                        } else {
+                            append(loads, getBase(load), new Pair<>(field, var));
+                        }
+                    } else if (stmt instanceof LoadArray load) {
+                        append(arrayLoads, load.getArrayAccess().getBase(), var);
+                    } else if (stmt instanceof Invoke invoke) {
+                        Var base = getBase(invoke);
+                        if (base == null || invoke.isSpecial()) {
+                            for (JMethod callee : callees.getOrDefault(invoke, Set.of())) {
+                                addReturnEdges(invoke, callee);
+                            }
+                        } else {
+                            append(calls, base, invoke);
+                        }
+                    }
+                }
+                JMethod method = var.getMethod();
+                int index = method.getIR().getParams().indexOf(var);
+                if (index >= 0 || var.equals(method.getIR().getThis())) {
+                    for (Invoke callSite : callers.getOrDefault(method, List.of())) {
+                        Var base = getBase(callSite);
+                        if (base == null) {
+                            addEdge(callSite.getInvokeExp().getArg(index), var);
+                        } else {
+                            append(receivers, base, new Pair<>(callSite, var));
+                        }
+                    }
+                }
+            }
+            for (JField field : fields) {
+                for (StoreField store : fieldStores.getOrDefault(field, List.of())) {
+                    if (field.isStatic()) {
+                        addEdge(store.getRValue(), new StaticNode(field));
+                    } else {
+                        append(stores, getBase(store), new Pair<>(field, store.getRValue()));
+                    }
+                }
+            }
+            if (arrays) {
+                for (StoreArray store : arrayStores) {
+                    append(arrayStoreValues, store.getArrayAccess().getBase(),
+                            store.getRValue());
+                }
+            }
+            // propagation
+            while (!workList.isEmpty()) {
+                Pair<Object, Set<Obj>> entry = workList.poll();
+                Object node = entry.first();
+                Set<Obj> pts = pointsTo.computeIfAbsent(node, unused -> Sets.newHybridSet());
+                Set<Obj> diff = Sets.newHybridSet();
+                for (Obj obj : entry.second()) {
+                    if (pts.add(obj)) {
+                        diff.add(obj);
+                    }
+                }
+                if (!diff.isEmpty()) {
+                    for (Object succ : succs.getOrDefault(node, Set.of())) {
+                        addEntry(succ, diff);
+                    }
+                    if (node instanceof Var var) {
+                        diff.forEach(obj -> processBase(var, obj));
+                    }
+                }
+            }
+            cacheAnswers();
+        }
+
+        private void processBase(Var var, Obj obj) {
+            loads.getOrDefault(var, List.of()).forEach(load ->
+                    addEdge(new FieldNode(obj, load.first()), load.second()));
+            stores.getOrDefault(var, List.of()).forEach(store ->
+                    addEdge(store.second(), new FieldNode(obj, store.first())));
+            arrayLoads.getOrDefault(var, List.of()).forEach(lhs ->
+                    addEdge(new ArrayNode(obj), lhs));
+            arrayStoreValues.getOrDefault(var, List.of()).forEach(value ->
+                    addEdge(value, new ArrayNode(obj)));
+            for (Invoke invoke : calls.getOrDefault(var, List.of())) {
+                JMethod callee = DispatchTable.resolveCallee(obj.getType(), invoke);
+                if (callee != null && !callee.isAbstract()) {
+                    addReturnEdges(invoke, callee);
+                }
+            }
+            for (Pair<Invoke, Var> receiver : receivers.getOrDefault(var, List.of())) {
+                Invoke callSite = receiver.first();
+                Var target = receiver.second();
+                JMethod method = target.getMethod();
+                if (method.equals(DispatchTable.resolveCallee(obj.getType(), callSite))) {
+                    callEdgeHandler.accept(callSite, method);
+                    if (target.equals(method.getIR().getThis())) {
+                        addEntry(target, Set.of(obj));
+                    } else {
+                        addEdge(callSite.getInvokeExp().getArg(
+                                method.getIR().getParams().indexOf(target)), target);
+                    }
+                }
+            }
+        }
+
+        private void addReturnEdges(Invoke invoke, JMethod callee) {
+            callEdgeHandler.accept(invoke, callee);
+            Var lhs = invoke.getResult();
+            if (lhs != null) {
+                callee.getIR().getReturnVars().forEach(ret -> addEdge(ret, lhs));
+            }
+        }
+
+        /**
+         * Seeds the cached answer of given node when it is first used.
+         */
+        private void touch(Object node) {
+            if (seeded.add(node)) {
+                Set<Obj> answer = answers.get(node);
+                if (answer != null && !answer.isEmpty()) {
+                    workList.add(new Pair<>(node, answer));
+                }
+            }
+        }
+
+        private void addEntry(Object node, Set<Obj> objs) {
+            touch(node);
+            workList.add(new Pair<>(node, objs));
+        }
+
+        private void addEdge(Object source, Object target) {
+            touch(source);
+            touch(target);
+            if (succs.computeIfAbsent(source, unused -> Sets.newHybridSet()).add(target)) {
+                Set<Obj> pts = pointsTo.get(source);
+                if (pts != null && !pts.isEmpty()) {
+                    workList.add(new Pair<>(target, Set.copyOf(pts)));
+                }
+            }
+        }
+
+        /**
+         * Caches the answers of the explored variables and fields,
+         * which are complete.
+         */
+        private void cacheAnswers() {
+            for (Var var : vars) {
+                cache(var, pointsTo.getOrDefault(var, Set.of()));
+            }
+            pointsTo.forEach((node, pts) -> {
+                if ((node instanceof StaticNode s && fields.contains(s.field())) ||
+                        (node instanceof FieldNode f && fields.contains(f.field())) ||
+                        (node instanceof ArrayNode && arrays)) {
+                    cache(node, pts);
+                }
+            });
+            completeFields.addAll(fields);
+            arraysComplete |= arrays;
+        }
+    }
+}
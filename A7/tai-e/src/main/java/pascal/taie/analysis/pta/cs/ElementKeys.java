@@ -0,0 +1,221 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.heap.ConstantObj;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.MergedObj;
+import pascal.taie.analysis.pta.core.heap.NewObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.ClassLiteral;
+import pascal.taie.ir.exp.StringLiteral;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keys of objects and context elements, which refer to program elements
+ * by their signatures, names and indexes, so they can be decoded in the
+ * world built for another run. The keys are shared by the files which
+ * store analysis facts, i.e., {@link SolverState} and {@link ResultFile}.
+ * Objects and context elements of other kinds than listed in
+ * {@link Encoder#encodeObj(Obj)} and {@link Encoder#encodeContext(Context)}
+ * cannot be encoded.
+ */
+final class ElementKeys {
+
+    private ElementKeys() {
+    }
+
+    record StmtKey(String method, int index) implements Serializable {
+    }
+
+    record TypeKey(String name) implements Serializable {
+    }
+
+    /**
+     * Key of {@link NewObj} (method and index of the allocation),
+     * or {@link ConstantObj} of string and class literals (the literal).
+     */
+    record ObjKey(@Nullable StmtKey allocation, @Nullable String string,
+                  @Nullable String klass, String type) implements Serializable {
+    }
+
+    /**
+     * Encodes elements to keys, caching the keys of contexts and
+     * objects, which are shared by many context-sensitive elements.
+     */
+    static class Encoder {
+
+        private final Map<Context, List<Object>> contexts = Maps.newMap();
+
+        private final Map<Obj, ObjKey> objs = Maps.newMap();
+
+        /**
+         * Encodes the elements of given context, i.e., objects,
+         * call sites and types.
+         *
+         * @return keys of the context elements,
+         * i.e., {@link ObjKey}, {@link StmtKey} and {@link TypeKey}.
+         */
+        List<Object> encodeContext(Context context) {
+            return contexts.computeIfAbsent(context, c -> {
+                List<Object> elements = new ArrayList<>(c.getLength());
+                for (int i = 0; i < c.getLength(); ++i) {
+                    Object element = c.getElementAt(i);
+                    if (element instanceof Obj obj) {
+                        elements.add(encodeObj(obj));
+                    } else if (element instanceof Invoke invoke) {
+                        elements.add(encodeStmt(invoke));
+                    } else if (element instanceof Type type) {
+                        elements.add(new TypeKey(type.getName()));
+                    } else {
+                        throw new UnsupportedOperationException(
+                                "Cannot encode context element " + element);
+                    }
+                }
+                return elements;
+            });
+        }
+
+        /**
+         * Encodes {@link NewObj}, {@link ConstantObj} of string and class
+         * literals, and {@link MergedObj} which represents such objects
+         * (the merged object is re-created from any represented object
+         * by the heap model).
+         */
+        ObjKey encodeObj(Obj obj) {
+            ObjKey key = objs.get(obj);
+            if (key == null) {
+                String type = obj.getType().getName();
+                if (obj instanceof NewObj newObj) {
+                    key = new ObjKey(encodeStmt(newObj.getAllocation()), null, null, type);
+                } else if (obj instanceof ConstantObj constObj &&
+                        constObj.getAllocation() instanceof StringLiteral s) {
+                    key = new ObjKey(null, s.getString(), null, type);
+                } else if (obj instanceof ConstantObj constObj &&
+                        constObj.getAllocation() instanceof ClassLiteral c) {
+                    key = new ObjKey(null, null, c.getTypeValue().getName(), type);
+                } else if (obj instanceof MergedObj mergedObj &&
+                        !mergedObj.getAllocation().isEmpty()) {
+                    key = encodeObj(mergedObj.getAllocation().iterator().next());
+                } else {
+                    throw new UnsupportedOperationException("Cannot encode object " + obj);
+                }
+                objs.put(obj, key);
+            }
+            return key;
+        }
+
+        StmtKey encodeStmt(Stmt stmt) {
+            JMethod container = stmt instanceof New newStmt ?
+                    newStmt.getContainer() : ((Invoke) stmt).getContainer();
+            return new StmtKey(container.getSignature(), stmt.getIndex());
+        }
+    }
+
+    /**
+     * Decodes keys to the elements of the current world.
+     */
+    static class Decoder {
+
+        private final HeapModel heapModel;
+
+        private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+        private final TypeSystem typeSystem = World.get().getTypeSystem();
+
+        private final Map<String, JMethod> methods = Maps.newMap();
+
+        private final Map<List<Object>, Context> contexts = Maps.newMap();
+
+        private final Map<ObjKey, Obj> objs = Maps.newMap();
+
+        Decoder(HeapModel heapModel) {
+            this.heapModel = heapModel;
+        }
+
+        JMethod getMethod(String signature) {
+            JMethod method = methods.computeIfAbsent(signature, hierarchy::getMethod);
+            if (method == null || method.isAbstract()) {
+                throw new IllegalStateException("Method " + signature + " not found");
+            }
+            return method;
+        }
+
+        <S extends Stmt> S decodeStmt(StmtKey key, Class<S> kind) {
+            List<Stmt> stmts = getMethod(key.method()).getIR().getStmts();
+            if (key.index() >= stmts.size() || !kind.isInstance(stmts.get(key.index()))) {
+                throw new IllegalStateException("Statement " + key + " not found");
+            }
+            return kind.cast(stmts.get(key.index()));
+        }
+
+        Context decodeContext(List<Object> key) {
+            return contexts.computeIfAbsent(key, k -> {
+                Object[] elements = new Object[k.size()];
+                for (int i = 0; i < elements.length; ++i) {
+                    Object element = k.get(i);
+                    if (element instanceof ObjKey o) {
+                        elements[i] = decodeObj(o);
+                    } else if (element instanceof StmtKey s) {
+                        elements[i] = decodeStmt(s, Invoke.class);
+                    } else {
+                        elements[i] = typeSystem.getType(((TypeKey) element).name());
+                    }
+                }
+                return ListContext.make(elements);
+            });
+        }
+
+        Obj decodeObj(ObjKey key) {
+            Obj obj = objs.get(key);
+            if (obj == null) {
+                if (key.allocation() != null) {
+                    obj = heapModel.getObj(decodeStmt(key.allocation(), New.class));
+                } else if (key.string() != null) {
+                    obj = heapModel.getConstantObj(StringLiteral.get(key.string()));
+                } else {
+                    obj = heapModel.getConstantObj(
+                            ClassLiteral.get(typeSystem.getType(key.klass())));
+                }
+                objs.put(key, obj);
+            }
+            return obj;
+        }
+    }
+}
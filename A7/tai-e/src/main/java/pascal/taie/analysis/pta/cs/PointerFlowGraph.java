@@ -22,36 +22,265 @@
 
 package pascal.taie.analysis.pta.cs;
 
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.ir.exp.Var;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.graph.SCC;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents pointer flow graph in context-sensitive pointer analysis.
+ * <p>
+ * If cycle collapsing is enabled (see {@link #enableCycleCollapsing(WorkList)}),
+ * this PFG periodically computes its strongly connected components, and
+ * merges the pointers of each cycle into a single representative node.
+ * The merged pointers share the points-to set of their representative,
+ * and their edges are redirected to the representative, so that objects
+ * are no longer pushed around the cycle one edge at a time.
  */
-class PointerFlowGraph {
+class PointerFlowGraph implements PropagationGraph {
+
+    /**
+     * Minimum number of new edges between two rounds of cycle detection.
+     */
+    private static final int MIN_DETECTION_INTERVAL = 16;
 
     /**
      * Map from a pointer (node) to its successors in PFG.
      */
-    private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
+    private final MultiMap<Pointer, Pointer> successors;
+
+    /**
+     * Map from a pointer (node) to its predecessors in PFG.
+     */
+    private final MultiMap<Pointer, Pointer> predecessors;
+
+    private final Set<Pointer> nodes = Sets.newHybridOrderedSet();
 
     /**
-     * Adds an edge (source -> target) to this PFG.
-     *
-     * @return true if this PFG changed as a result of the call,
-     * otherwise false.
+     * Map from a merged pointer to the pointer it has been merged into.
+     * The representative of a pointer is found by following this map.
      */
-    boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+    private final Map<Pointer, Pointer> merged = Maps.newMap();
+
+    /**
+     * Work list for propagating the objects exposed by merging pointers,
+     * or null if cycle collapsing is disabled.
+     */
+    private WorkList workList;
+
+    private int edgeCount = 0;
+
+    private int newEdges = 0;
+
+    private int detectionInterval = MIN_DETECTION_INTERVAL;
+
+    private int collapsedCycles = 0;
+
+    PointerFlowGraph() {
+        this(0);
+    }
+
+    /**
+     * @param expectedNodes the expected number of nodes of this PFG,
+     *                      which is used to pre-size its edge maps,
+     *                      or 0 if it is unknown.
+     */
+    PointerFlowGraph(int expectedNodes) {
+        if (expectedNodes > 0) {
+            successors = Maps.newMultiMap(expectedNodes);
+            predecessors = Maps.newMultiMap(expectedNodes);
+        } else {
+            successors = Maps.newMultiMap();
+            predecessors = Maps.newMultiMap();
+        }
+    }
+
+    /**
+     * Enables cycle collapsing on this PFG. The work list is used to
+     * propagate the objects which become visible to the successors
+     * of merged pointers, and is told to resolve entries of merged
+     * pointers to their representatives.
+     */
+    void enableCycleCollapsing(WorkList workList) {
+        this.workList = workList;
+        workList.setRepresentatives(this::getRepOf);
+    }
+
+    @Override
+    public boolean addEdge(Pointer source, Pointer target) {
+        source = getRepOf(source);
+        target = getRepOf(target);
+        if (workList != null && source == target) {
+            // edge inside a collapsed cycle
+            return false;
+        }
+        if (successors.put(source, target)) {
+            predecessors.put(target, source);
+            nodes.add(source);
+            nodes.add(target);
+            ++edgeCount;
+            if (workList != null && ++newEdges >= detectionInterval) {
+                collapseCycles();
+            }
+            return true;
+        }
+        return false;
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
-    Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+    @Override
+    public Set<Pointer> getSuccsOf(Pointer pointer) {
+        return successors.get(getRepOf(pointer));
+    }
+
+    @Override
+    public Set<Pointer> getPredsOf(Pointer pointer) {
+        return predecessors.get(getRepOf(pointer));
+    }
+
+    @Override
+    public boolean hasNode(Pointer pointer) {
+        return nodes.contains(getRepOf(pointer));
+    }
+
+    /**
+     * @return whether the PFG has an edge "source -> target". The edges
+     * inside a collapsed cycle are represented by the cycle itself.
+     */
+    @Override
+    public boolean hasEdge(Pointer source, Pointer target) {
+        source = getRepOf(source);
+        target = getRepOf(target);
+        if (workList != null && source == target) {
+            return true;
+        }
+        return successors.contains(source, target);
+    }
+
+    @Override
+    public Set<Pointer> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the pointer which represents given pointer in this PFG.
+     * If the pointer has not been merged, returns the pointer itself.
+     */
+    Pointer getRepOf(Pointer pointer) {
+        if (merged.isEmpty()) {
+            return pointer;
+        }
+        Pointer rep = pointer;
+        for (Pointer next; (next = merged.get(rep)) != null; ) {
+            rep = next;
+        }
+        if (rep != pointer) {
+            // path compression
+            merged.put(pointer, rep);
+        }
+        return rep;
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return edgeCount;
+    }
+
+    @Override
+    public int getNumberOfCollapsedNodes() {
+        return merged.size();
+    }
+
+    @Override
+    public int getNumberOfCollapsedCycles() {
+        return collapsedCycles;
+    }
+
+    /**
+     * Detects cycles of this PFG and merges the pointers of each cycle.
+     */
+    private void collapseCycles() {
+        new SCC<>(this).getTrueComponents().forEach(this::collapse);
+        newEdges = 0;
+        detectionInterval = Math.max(MIN_DETECTION_INTERVAL, edgeCount);
+    }
+
+    /**
+     * Merges the collapsible pointers in a cycle into a representative.
+     * CSVars whose variables are used as base or receiver variables
+     * carry statements that the solver processes by the CSVar itself,
+     * so such pointers are never merged into other pointers;
+     * at most one of them can act as the representative.
+     */
+    private void collapse(List<Pointer> cycle) {
+        Pointer rep = cycle.stream()
+                .filter(p -> !isCollapsible(p))
+                .findFirst()
+                .orElse(cycle.get(0));
+        boolean changed = false;
+        for (Pointer pointer : cycle) {
+            if (pointer != rep && isCollapsible(pointer)) {
+                merge(pointer, rep);
+                changed = true;
+            }
+        }
+        if (changed) {
+            ++collapsedCycles;
+        }
+    }
+
+    private void merge(Pointer pointer, Pointer rep) {
+        PointsToSet repPts = rep.getPointsToSet();
+        // objects of pointer are new to rep and its successors
+        if (!pointer.getPointsToSet().isEmpty()) {
+            workList.addEntry(rep, pointer.getPointsToSet());
+        }
+        for (Pointer succ : List.copyOf(successors.get(pointer))) {
+            predecessors.remove(succ, pointer);
+            if (succ != rep && successors.put(rep, succ)) {
+                predecessors.put(succ, rep);
+                // objects of rep are new to the successors of pointer
+                if (!repPts.isEmpty()) {
+                    workList.addEntry(succ, repPts);
+                }
+            } else {
+                --edgeCount;
+            }
+        }
+        for (Pointer pred : List.copyOf(predecessors.get(pointer))) {
+            successors.remove(pred, pointer);
+            if (pred != rep && successors.put(pred, rep)) {
+                predecessors.put(rep, pred);
+            } else {
+                --edgeCount;
+            }
+        }
+        successors.removeAll(pointer);
+        predecessors.removeAll(pointer);
+        nodes.remove(pointer);
+        pointer.setPointsToSet(repPts);
+        merged.put(pointer, rep);
+    }
+
+    private static boolean isCollapsible(Pointer pointer) {
+        if (pointer instanceof CSVar csVar) {
+            Var var = csVar.getVar();
+            return var.getLoadFields().isEmpty() &&
+                    var.getStoreFields().isEmpty() &&
+                    var.getLoadArrays().isEmpty() &&
+                    var.getStoreArrays().isEmpty() &&
+                    var.getInvokes().isEmpty();
+        }
+        return true;
     }
 }
@@ -0,0 +1,391 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.plugin;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Streams;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming dumper of points-to sets, configured by the options:
+ * <ul>
+ *     <li>"dump-format": text (default) is the format read by
+ *     {@link ResultProcessor}'s compare action, i.e., a header line
+ *     for each kind of pointers, then one "pointer -> points-to set"
+ *     line per pointer. jsonl writes one JSON object per line, e.g.,
+ *     {"kind":"variables","pointer":"...","pts":["...", ...]},
+ *     without headers.</li>
+ *     <li>"dump-sorted": if true (default), the pointers of each kind
+ *     are dumped in the order of their string representations, as before.
+ *     If false, they are dumped in the order of the result, which is
+ *     faster but not deterministic across runs.</li>
+ *     <li>"dump-sort-threshold": the number of pointers of one kind above
+ *     which they are sorted externally, i.e., in sorted runs of this size
+ *     in temporary files, which are then merged (1,000,000 by default).</li>
+ * </ul>
+ * The string of each pointer is computed once as its sort key, the
+ * pointers are sorted in parallel, and the lines are formatted in
+ * parallel and written in order through a buffered file channel.
+ */
+class PointsToDumper implements AutoCloseable {
+
+    private static final String HEADER = "Points-to sets of all ";
+
+    /**
+     * Separator between pointer and its points-to set.
+     */
+    private static final String SEP = " -> ";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Number of lines which are formatted in parallel at a time.
+     */
+    private static final int BATCH_SIZE = 4096;
+
+    private final Writer out;
+
+    private final boolean closeOut;
+
+    private final boolean jsonl;
+
+    private final boolean sorted;
+
+    private final int sortThreshold;
+
+    /**
+     * @param output the output file, or null to dump to System.out.
+     */
+    PointsToDumper(AnalysisOptions options, @Nullable String output) {
+        String format = options.getString("dump-format");
+        if (format == null || format.equals("text")) {
+            jsonl = false;
+        } else if (format.equals("jsonl")) {
+            jsonl = true;
+        } else {
+            throw new ConfigException("Unknown dump format: " + format);
+        }
+        sorted = options.getBooleanOrDefault("dump-sorted", true);
+        sortThreshold = options.get("dump-sort-threshold") != null ?
+                options.getInt("dump-sort-threshold") : 1_000_000;
+        if (sortThreshold <= 0) {
+            throw new ConfigException("dump-sort-threshold must be positive");
+        }
+        if (output != null) {
+            try {
+                FileChannel channel = FileChannel.open(Path.of(output),
+                        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+                out = new BufferedWriter(Channels.newWriter(
+                        channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to open output file", e);
+            }
+            closeOut = true;
+        } else {
+            out = new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE);
+            closeOut = false;
+        }
+    }
+
+    /**
+     * Dumps the points-to sets of given pointers.
+     *
+     * @param kind description of the kind of the pointers, e.g., "variables".
+     */
+    void dumpPointers(Collection<? extends Pointer> pointers, String kind) {
+        try {
+            if (!jsonl) {
+                writeLine(HEADER + kind);
+            }
+            if (!sorted) {
+                for (Pointer pointer : pointers) {
+                    writeLine(format(kind, pointer.toString(), pointer.getPointsToSet()));
+                }
+            } else if (pointers.size() <= sortThreshold) {
+                Keyed[] keyed = pointers.parallelStream()
+                        .map(Keyed::new)
+                        .toArray(Keyed[]::new);
+                Arrays.parallelSort(keyed, Keyed.BY_KEY);
+                writeFormatted(keyed, kind, (k, line) -> writeLine(line));
+            } else {
+                sortExternally(pointers, kind);
+            }
+            if (!jsonl) {
+                writeLine("");
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to dump points-to sets", e);
+        }
+    }
+
+    /**
+     * Dumps other results, e.g., taint flows, one entry per line.
+     *
+     * @param header the header of the entries in text format.
+     * @param kind   the kind of the entries in JSONL format.
+     */
+    void dumpEntries(String header, String kind, Collection<?> entries) {
+        try {
+            if (!jsonl) {
+                writeLine(header);
+            }
+            for (Object entry : entries) {
+                writeLine(jsonl ? "{\"kind\":" + quote(kind) + ",\"value\":" +
+                        quote(entry.toString()) + "}" : entry.toString());
+            }
+            if (!jsonl) {
+                writeLine("");
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to dump " + kind, e);
+        }
+    }
+
+    private String format(String kind, String pointer, PointsToSet pts) {
+        if (jsonl) {
+            return "{\"kind\":" + quote(kind) + ",\"pointer\":" + quote(pointer) +
+                    ",\"pts\":[" + pts.objects()
+                    .map(o -> quote(o.toString()))
+                    .collect(Collectors.joining(",")) + "]}";
+        } else {
+            return pointer + SEP + Streams.toString(pts.objects());
+        }
+    }
+
+    /**
+     * Sorts the pointers in runs of {@link #sortThreshold} pointers, writes
+     * each run to a temporary file, and merges the runs into the output.
+     * Each record of a run holds the key and the formatted line, each
+     * prefixed by its length, so that they may contain line breaks.
+     */
+    private void sortExternally(Collection<? extends Pointer> pointers, String kind)
+            throws IOException {
+        Path dir = Files.createTempDirectory("pta-dump");
+        List<Path> runs = new ArrayList<>();
+        try {
+            Iterator<? extends Pointer> it = pointers.iterator();
+            while (it.hasNext()) {
+                List<Pointer> chunk = new ArrayList<>(sortThreshold);
+                while (it.hasNext() && chunk.size() < sortThreshold) {
+                    chunk.add(it.next());
+                }
+                Keyed[] keyed = chunk.parallelStream()
+                        .map(Keyed::new)
+                        .toArray(Keyed[]::new);
+                Arrays.parallelSort(keyed, Keyed.BY_KEY);
+                Path run = dir.resolve("run" + runs.size());
+                runs.add(run);
+                try (DataOutputStream output = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+                    writeFormatted(keyed, kind, (k, line) -> {
+                        writeString(output, k.key);
+                        writeString(output, line);
+                    });
+                }
+            }
+            mergeRuns(runs);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private void mergeRuns(List<Path> runs) throws IOException {
+        List<DataInputStream> inputs = new ArrayList<>(runs.size());
+        try {
+            // ties are broken by run index, so the merge is stable
+            PriorityQueue<Head> heads = new PriorityQueue<>(Comparator
+                    .comparing((Head h) -> h.key).thenComparingInt(h -> h.run));
+            for (Path run : runs) {
+                DataInputStream input = new DataInputStream(
+                        new BufferedInputStream(Files.newInputStream(run), BUFFER_SIZE));
+                inputs.add(input);
+                Head head = Head.read(input, inputs.size() - 1);
+                if (head != null) {
+                    heads.add(head);
+                }
+            }
+            Head head;
+            while ((head = heads.poll()) != null) {
+                writeLine(head.line);
+                Head next = Head.read(inputs.get(head.run), head.run);
+                if (next != null) {
+                    heads.add(next);
+                }
+            }
+        } finally {
+            for (DataInputStream input : inputs) {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Formats the lines of given pointers in parallel, a batch at a time,
+     * and passes them in order to given sink.
+     */
+    private void writeFormatted(Keyed[] keyed, String kind, LineSink sink)
+            throws IOException {
+        for (int from = 0; from < keyed.length; from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, keyed.length);
+            String[] lines = Arrays.stream(keyed, from, to)
+                    .parallel()
+                    .map(k -> format(kind, k.key, k.pointer.getPointsToSet()))
+                    .toArray(String[]::new);
+            for (int i = from; i < to; ++i) {
+                sink.accept(keyed[i], lines[i - from]);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String s)
+            throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void writeLine(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+    }
+
+    /**
+     * @return the JSON string literal of given string.
+     */
+    private static String quote(String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); ++i) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (closeOut) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new AnalysisException("Failed to dump points-to sets", e);
+        }
+    }
+
+    /**
+     * Pointer with its string representation as sort key.
+     */
+    private static class Keyed {
+
+        private static final Comparator<Keyed> BY_KEY =
+                Comparator.comparing(k -> k.key);
+
+        private final String key;
+
+        private final Pointer pointer;
+
+        private Keyed(Pointer pointer) {
+            this.key = pointer.toString();
+            this.pointer = pointer;
+        }
+    }
+
+    /**
+     * Receives the formatted line of each pointer.
+     */
+    @FunctionalInterface
+    private interface LineSink {
+
+        void accept(Keyed keyed, String line) throws IOException;
+    }
+
+    /**
+     * Next record of a sorted run.
+     */
+    private record Head(String key, String line, int run) {
+
+        private static @Nullable Head read(DataInputStream input, int run)
+                throws IOException {
+            String key;
+            try {
+                key = readString(input);
+            } catch (EOFException e) {
+                return null;
+            }
+            return new Head(key, readString(input), run);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set of a pointer whose objects are kept in an immutable set
+ * shared with all other equal points-to sets (see {@link PointsToSetPool}).
+ * <p>
+ * Adding objects first takes the set out of the pool: the set is copied
+ * only if other points-to sets share it, otherwise this points-to set
+ * owns it and modifies it in place. Then, the set is interned again
+ * only once per propagation, i.e., at the end of {@link #addAllDiff},
+ * instead of after every added object. The objects added by
+ * {@link #addObject} stay in the owned set until the next propagation.
+ */
+class SharedPointsToSet implements PointsToSet {
+
+    private final PointsToSetPool pool;
+
+    /**
+     * The pool node of {@link #set}, or null if this points-to set
+     * owns {@link #set}.
+     */
+    private PointsToSetPool.Node node;
+
+    private PointsToSet set;
+
+    SharedPointsToSet(PointsToSetPool pool) {
+        this.pool = pool;
+        this.node = pool.getEmpty();
+        this.set = node.set;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        if (set.contains(obj)) {
+            return false;
+        }
+        own();
+        return set.addObject(obj);
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        return !addAllDiff(pts).isEmpty();
+    }
+
+    @Override
+    public PointsToSet addAllDiff(PointsToSet pts) {
+        PointsToSet diff = pool.makeSet();
+        for (CSObj obj : pts) {
+            if (!set.contains(obj)) {
+                diff.addObject(obj);
+            }
+        }
+        if (!diff.isEmpty()) {
+            own();
+            set.addAll(diff);
+            node = pool.intern(set);
+            set = node.set;
+        }
+        return diff;
+    }
+
+    /**
+     * Takes {@link #set} out of the pool, so that it can be modified.
+     */
+    private void own() {
+        if (node != null) {
+            if (node.isShared()) {
+                PointsToSet copy = pool.makeSet();
+                copy.addAll(set);
+                set = copy;
+            }
+            pool.release(node);
+            node = null;
+        }
+    }
+
+    /**
+     * @return the set which holds the objects of this points-to set,
+     * and which is shared with the equal points-to sets in the pool.
+     */
+    PointsToSet getSet() {
+        return set;
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return set.contains(obj);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return set.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return Collections.unmodifiableSet(set.getObjects());
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return set.objects();
+    }
+
+    @Override
+    public Iterator<CSObj> iterator() {
+        return getObjects().iterator();
+    }
+
+    @Override
+    public String toString() {
+        return set.toString();
+    }
+}
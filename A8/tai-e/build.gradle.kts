@@ -1,6 +1,7 @@
 plugins {
     id("java")
     id("application")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 repositories {
@@ -19,12 +20,30 @@ application {
 
 tasks.compileJava { options.encoding = "UTF-8" }
 tasks.compileTestJava { options.encoding = "UTF-8" }
+tasks.named<JavaCompile>("compileJmhJava") { options.encoding = "UTF-8" }
 
 tasks.test {
     useJUnit()
     maxHeapSize = "4G"
 }
 
+// Microbenchmarks in src/jmh, run by "gradlew jmh". They capture their
+// inputs by analyzing the programs in src/test/resources/pta.
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    jvmArgs.set(listOf("-Xmx4G"))
+}
+
+// Runs cspta on generated programs of increasing size, see ScalabilityDriver
+tasks.register<JavaExec>("scalability") {
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("pascal.taie.analysis.pta.ScalabilityDriver")
+    maxHeapSize = "4G"
+}
+
 java {
     toolchain {
         languageVersion.set(JavaLanguageVersion.of(17))
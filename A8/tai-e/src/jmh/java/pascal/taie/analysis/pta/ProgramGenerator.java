@@ -0,0 +1,261 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates compilable Java programs of configurable size and shape
+ * for testing the scalability of pointer analysis.
+ * <p>
+ * A generated program consists of:
+ * <ul>
+ *     <li>{@code classes} subclasses of class {@code Node}, which form
+ *     inheritance chains of at most {@code depth} classes, and each of
+ *     which overrides {@code Node.m(Object)};</li>
+ *     <li>polymorphic call sites {@code n.m(o)}, each of which has
+ *     {@code fanOut} receiver classes (chosen by a {@code pick} method);</li>
+ *     <li>container-like wrappers {@code W0 ... W<wrappers>}, where each
+ *     wrapper delegates to the previous one, and {@code W0} stores
+ *     the object in a field;</li>
+ *     <li>{@code fieldStores} pairs of field stores and loads
+ *     in each method {@code m};</li>
+ *     <li>if {@code recursion} is true, call cycles among the methods
+ *     {@code m}, otherwise the call graph is acyclic.</li>
+ * </ul>
+ * The program is never executed, so only its pointer flow matters.
+ */
+public class ProgramGenerator {
+
+    /**
+     * Shape of generated programs.
+     */
+    public record Shape(int classes, int depth, int fanOut, int wrappers,
+                        int fieldStores, boolean recursion, long seed) {
+
+        public Shape {
+            if (classes < 1 || depth < 1 || fanOut < 1 ||
+                    wrappers < 0 || fieldStores < 0) {
+                throw new IllegalArgumentException(String.format(
+                        "Invalid shape: classes=%d, depth=%d, fanOut=%d, wrappers=%d, fieldStores=%d",
+                        classes, depth, fanOut, wrappers, fieldStores));
+            }
+        }
+
+        /**
+         * @return the shape of given number of classes and default
+         * values of the other dimensions.
+         */
+        public static Shape of(int classes) {
+            return new Shape(classes, 4, 4, 3, 2, true, 0);
+        }
+    }
+
+    private final String name;
+
+    private final Shape shape;
+
+    /**
+     * Classes of the receivers of each polymorphic call site.
+     */
+    private final List<List<Integer>> groups = new ArrayList<>();
+
+    /**
+     * Index of the group of each class in {@link #groups}.
+     */
+    private final int[] groupOf;
+
+    private final StringBuilder out = new StringBuilder();
+
+    private ProgramGenerator(String name, Shape shape) {
+        this.name = name;
+        this.shape = shape;
+        List<Integer> classes = new ArrayList<>();
+        for (int i = 0; i < shape.classes(); ++i) {
+            classes.add(i);
+        }
+        Collections.shuffle(classes, new Random(shape.seed()));
+        groupOf = new int[shape.classes()];
+        for (int i = 0; i < classes.size(); i += shape.fanOut()) {
+            List<Integer> group = classes.subList(i,
+                    Math.min(i + shape.fanOut(), classes.size()));
+            group.forEach(c -> groupOf[c] = groups.size());
+            groups.add(group);
+        }
+    }
+
+    /**
+     * @return the source code of the program whose main class is
+     * {@code name}, with given shape.
+     */
+    public static String generate(String name, Shape shape) {
+        return new ProgramGenerator(name, shape).generate();
+    }
+
+    /**
+     * Writes the program to {@code <dir>/<name>.java}.
+     *
+     * @return the path of the written file.
+     */
+    public static Path write(Path dir, String name, Shape shape) {
+        try {
+            Files.createDirectories(dir);
+            Path file = dir.resolve(name + ".java");
+            Files.writeString(file, generate(name, shape));
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write program " + name, e);
+        }
+    }
+
+    private String generate() {
+        generateMain();
+        line("");
+        line("abstract class Node {");
+        line("    Object f;");
+        line("    Node next;");
+        line("    abstract Object m(Object o);");
+        line("}");
+        for (int i = 0; i < shape.classes(); ++i) {
+            generateClass(i);
+        }
+        generateWrappers();
+        return out.toString();
+    }
+
+    private void generateMain() {
+        line("class %s {", name);
+        line("    public static void main(String[] args) {");
+        line("        Object o = new Object();");
+        for (int g = 0; g < groups.size(); ++g) {
+            line("        Object r%d = pick%d(args.length).m(o);", g, g);
+        }
+        line("    }");
+        for (int g = 0; g < groups.size(); ++g) {
+            List<Integer> group = groups.get(g);
+            line("");
+            line("    static Node pick%d(int k) {", g);
+            for (int i = 0; i < group.size() - 1; ++i) {
+                line("        if (k == %d) {", i);
+                line("            return new C%d();", group.get(i));
+                line("        }");
+            }
+            line("        return new C%d();", group.get(group.size() - 1));
+            line("    }");
+        }
+        line("}");
+    }
+
+    private void generateClass(int i) {
+        int depth = i % shape.depth();
+        String parent = depth == 0 ? "Node" : "C" + (i - 1);
+        line("");
+        line("class C%d extends %s {", i, parent);
+        line("    Object m(Object o) {");
+        line("        Object v = new Object();");
+        for (int s = 0; s < shape.fieldStores(); ++s) {
+            line("        Node t%d = new C%d();", s, (i + s + 1) % shape.classes());
+            line("        t%d.f = v;", s);
+            line("        this.f = t%d.f;", s);
+            line("        this.next = t%d;", s);
+            line("        v = this.f;");
+        }
+        if (shape.wrappers() > 0) {
+            line("        W%d w = new W%d();", shape.wrappers(), shape.wrappers());
+            line("        w.set(o);");
+            line("        Object r = w.get();");
+        } else {
+            line("        Object r = o;");
+        }
+        int group = groupOf[i];
+        if (shape.recursion() || group + 1 < groups.size()) {
+            line("        %s.pick%d(o.hashCode()).m(r);",
+                    name, (group + 1) % groups.size());
+        }
+        if (shape.recursion()) {
+            line("        if (o == v) {");
+            line("            return this.next.m(v);");
+            line("        }");
+        }
+        line("        return r;");
+        line("    }");
+        line("}");
+    }
+
+    private void generateWrappers() {
+        line("");
+        line("class W0 {");
+        line("    Object v;");
+        line("    void set(Object v) {");
+        line("        this.v = v;");
+        line("    }");
+        line("    Object get() {");
+        line("        return this.v;");
+        line("    }");
+        line("}");
+        for (int k = 1; k <= shape.wrappers(); ++k) {
+            line("");
+            line("class W%d {", k);
+            line("    W%d inner = new W%d();", k - 1, k - 1);
+            line("    void set(Object v) {");
+            line("        inner.set(v);");
+            line("    }");
+            line("    Object get() {");
+            line("        return inner.get();");
+            line("    }");
+            line("}");
+        }
+    }
+
+    private void line(String format, Object... args) {
+        out.append(String.format(format, args)).append('\n');
+    }
+
+    /**
+     * Usage: ProgramGenerator dir name classes [depth fanOut wrappers
+     * fieldStores recursion seed].
+     */
+    public static void main(String[] args) {
+        Shape shape;
+        if (args.length == 3) {
+            shape = Shape.of(Integer.parseInt(args[2]));
+        } else if (args.length == 9) {
+            shape = new Shape(Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]), Integer.parseInt(args[5]),
+                    Integer.parseInt(args[6]), Boolean.parseBoolean(args[7]),
+                    Long.parseLong(args[8]));
+        } else {
+            System.err.println("Usage: ProgramGenerator dir name classes " +
+                    "[depth fanOut wrappers fieldStores recursion seed]");
+            return;
+        }
+        System.out.println("Generated " + write(Path.of(args[0]), args[1], shape));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.cs.CSPTA;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Runs cspta with each context selector on generated programs
+ * (see {@link ProgramGenerator}) of increasing size, and reports
+ * the time, peak heap usage and result statistics of each run,
+ * which give the scalability curve of the analysis.
+ * <p>
+ * Usage: ScalabilityDriver [dir [sizes [selectors]]], where sizes
+ * and selectors are comma-separated, e.g., "100,200,400" and
+ * "ci,2-obj". The programs and the report (scalability.csv)
+ * are written to dir.
+ */
+public class ScalabilityDriver {
+
+    private static final String DEFAULT_DIR = "build/scalability";
+
+    private static final String DEFAULT_SIZES = "100,200,400,800,1600";
+
+    private static final String DEFAULT_SELECTORS =
+            "ci,1-call,1-obj,1-type,2-call,2-obj,2-type";
+
+    /**
+     * Taint configuration of the test programs. The generated programs
+     * contain no sources, so the taint analysis finds no flows.
+     */
+    private static final String TAINT_CONFIG = "src/test/resources/pta/taint/taint-config.yml";
+
+    private static final String HEADER =
+            "classes,cs,time-ms,peak-heap-mb,reachable-methods,call-edges,cs-vars,var-pts-size";
+
+    private record Run(int classes, String cs, long timeMillis, long peakHeap,
+                       int reachableMethods, int callEdges, int csVars, long ptsSize) {
+
+        @Override
+        public String toString() {
+            return String.join(",", String.valueOf(classes), cs,
+                    String.valueOf(timeMillis),
+                    String.valueOf(peakHeap / (1024 * 1024)),
+                    String.valueOf(reachableMethods), String.valueOf(callEdges),
+                    String.valueOf(csVars), String.valueOf(ptsSize));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args.length > 0 ? args[0] : DEFAULT_DIR);
+        String[] sizes = (args.length > 1 ? args[1] : DEFAULT_SIZES).split(",");
+        String[] selectors = (args.length > 2 ? args[2] : DEFAULT_SELECTORS).split(",");
+        Files.createDirectories(dir);
+        try (PrintStream report = new PrintStream(
+                dir.resolve("scalability.csv").toFile())) {
+            report.println(HEADER);
+            System.out.println(HEADER);
+            for (String size : sizes) {
+                int classes = Integer.parseInt(size);
+                String name = "Gen" + classes;
+                Path programDir = dir.resolve(name);
+                ProgramGenerator.write(programDir, name,
+                        ProgramGenerator.Shape.of(classes));
+                for (String cs : selectors) {
+                    Run run = run(programDir, name, classes, cs);
+                    report.println(run);
+                    report.flush();
+                    System.out.println(run);
+                }
+            }
+        }
+    }
+
+    private static Run run(Path programDir, String main, int classes, String cs) {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans()
+                .stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        Main.main(new String[]{
+                "-pp", "-cp", programDir.toString(), "-m", main,
+                "-a", CSPTA.ID + "=cs:" + cs +
+                        ";taint-config:" + TAINT_CONFIG
+        });
+        long time = (System.nanoTime() - start) / 1_000_000;
+        long peakHeap = heapPools.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        PointerAnalysisResult result = World.get().getResult(CSPTA.ID);
+        long ptsSize = 0;
+        for (CSVar var : result.getCSVars()) {
+            ptsSize += result.getPointsToSet(var).size();
+        }
+        return new Run(classes, cs, time, peakHeap,
+                result.getCSCallGraph().getNumberOfMethods(),
+                result.getCSCallGraph().getNumberOfEdges(),
+                result.getCSVars().size(), ptsSize);
+    }
+}
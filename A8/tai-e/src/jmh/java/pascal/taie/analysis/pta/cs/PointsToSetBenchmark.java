@@ -0,0 +1,133 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
+import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmarks of the implementations of {@link PointsToSet}
+ * (option "pts") on the points-to sets of a snapshot.
+ * <p>
+ * Parameter "size" selects the points-to sets with at most
+ * {@link #SMALL_SIZE} objects (small) or the others (large).
+ * Parameter "density" is the fraction of object indexes used by the
+ * objects of the snapshot, and the remaining indexes are taken by
+ * filler objects, which makes bit-set-based points-to sets sparser.
+ */
+@State(Scope.Benchmark)
+public class PointsToSetBenchmark {
+
+    private static final int SMALL_SIZE = 2;
+
+    @Param({"SimpleTaint", "ArgToResult", "InterTaintTransfer", "StringAppend"})
+    public String program;
+
+    @Param({"hybrid", "bit-set"})
+    public String pts;
+
+    @Param({"small", "large"})
+    public String size;
+
+    @Param({"1.0", "0.1"})
+    public double density;
+
+    private PointsToSet[] sets;
+
+    @Setup
+    public void setup() {
+        PTASnapshot snapshot = PTASnapshot.capture(program);
+        CSObjIndexer indexer = new CSObjIndexer();
+        PointsToSetFactory.configure(new AnalysisOptions(Map.of("pts", pts)),
+                indexer);
+        // copy the objects, as each object can only be indexed by one indexer
+        CSManager csManager = new MapBasedCSManager();
+        Map<CSObj, CSObj> copies = Maps.newMap();
+        int fillers = (int) Math.round(1 / density) - 1;
+        int nextFiller = 0;
+        List<List<CSObj>> selected = snapshot.pointsToSets.stream()
+                .filter(objs -> (objs.size() <= SMALL_SIZE) == size.equals("small"))
+                .toList();
+        if (selected.isEmpty()) {
+            throw new IllegalStateException("No " + size +
+                    " points-to sets in the snapshot of " + program);
+        }
+        sets = new PointsToSet[selected.size()];
+        for (int i = 0; i < sets.length; ++i) {
+            sets[i] = PointsToSetFactory.make();
+            for (CSObj obj : selected.get(i)) {
+                CSObj copy = copies.get(obj);
+                if (copy == null) {
+                    for (int j = 0; j < fillers; ++j) {
+                        indexer.getIndex(csManager.getCSObj(
+                                ListContext.make(nextFiller++), obj.getObject()));
+                    }
+                    copy = csManager.getCSObj(obj.getContext(), obj.getObject());
+                    copies.put(obj, copy);
+                }
+                sets[i].addObject(copy);
+            }
+        }
+    }
+
+    @Benchmark
+    public void addAll(Blackhole bh) {
+        PointsToSet union = PointsToSetFactory.make();
+        for (PointsToSet set : sets) {
+            bh.consume(union.addAll(set));
+        }
+    }
+
+    @Benchmark
+    public void addAllDiff(Blackhole bh) {
+        PointsToSet union = PointsToSetFactory.make();
+        for (PointsToSet set : sets) {
+            bh.consume(union.addAllDiff(set));
+        }
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (PointsToSet set : sets) {
+            for (CSObj obj : set) {
+                bh.consume(obj);
+            }
+        }
+    }
+}
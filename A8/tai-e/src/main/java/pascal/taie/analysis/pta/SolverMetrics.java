@@ -0,0 +1,347 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Collects the metrics of a solver run and exports them to the file
+ * given by option "metrics", in the format given by option
+ * "metrics-format" (json or csv, by default inferred from the file
+ * extension). If option "metrics" is not set, the metrics are disabled
+ * and all operations of this class are no-ops.
+ * <p>
+ * The metrics are shared by the context-insensitive and
+ * the context-sensitive solvers.
+ * <p>
+ * The metrics include:
+ * <ul>
+ *     <li>time and number of calls of each {@link Phase};</li>
+ *     <li>histogram of the sizes of the difference sets of propagation;</li>
+ *     <li>histogram of the number of contexts per method
+ *     (context-sensitive solvers only);</li>
+ *     <li>counters reported by the solver after solving;</li>
+ *     <li>progress snapshots taken every "metrics-interval"
+ *     (10000 by default) propagations.</li>
+ * </ul>
+ */
+public class SolverMetrics {
+
+    /**
+     * Phases of solving. The phases are timed by the driver of the solver,
+     * not inside the methods which implement the analysis, so that the
+     * timing does not depend on how (and where) these methods return.
+     */
+    public enum Phase {
+        /**
+         * Making the entry methods reachable, which processes their
+         * statements (and, in incremental solving, the statements of
+         * the methods which are processed again).
+         */
+        ENTRY_METHODS("entry-methods"),
+        /**
+         * Processing a work-list entry, i.e., propagating its points-to
+         * set and processing the calls, field and array accesses and
+         * new reachable methods which are affected by the propagation.
+         */
+        PROPAGATE("propagate");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Number of buckets of the histograms. Bucket i counts
+     * the values in [2^(i-1), 2^i), and bucket 0 counts zeros.
+     */
+    private static final int BUCKETS = 33;
+
+    private static final int DEFAULT_INTERVAL = 10000;
+
+    private final boolean enabled;
+
+    private final String output;
+
+    private final boolean csv;
+
+    private final int interval;
+
+    private final CallGraph<?, ?> callGraph;
+
+    private final long startTime = System.nanoTime();
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private final LongAdder[] times = newAdders();
+
+    private final AtomicLongArray calls = new AtomicLongArray(Phase.values().length);
+
+    private final AtomicLongArray deltaSizes = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLongArray contextsPerMethod = new AtomicLongArray(BUCKETS);
+
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    private final List<Snapshot> snapshots = Collections.synchronizedList(new ArrayList<>());
+
+    private record Snapshot(long elapsedMillis, long propagations,
+                            int reachableMethods, int callEdges, long usedHeap) {
+    }
+
+    public SolverMetrics(AnalysisOptions options, CallGraph<?, ?> callGraph) {
+        this.output = options.getString("metrics");
+        this.enabled = output != null;
+        String format = options.getString("metrics-format");
+        if (format == null) {
+            format = output != null && output.endsWith(".csv") ? "csv" : "json";
+        }
+        if (!format.equals("json") && !format.equals("csv")) {
+            throw new ConfigException("Unknown metrics format: " + format);
+        }
+        this.csv = format.equals("csv");
+        this.interval = options.get("metrics-interval") != null ?
+                options.getInt("metrics-interval") : DEFAULT_INTERVAL;
+        this.callGraph = callGraph;
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[Phase.values().length];
+        for (int i = 0; i < adders.length; ++i) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * @return true if the metrics are collected, otherwise false.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the start time of a phase, to be given to
+     * {@link #stop(Phase, long)} at the end of the phase.
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a call of given phase which started at {@code start}.
+     */
+    public void stop(Phase phase, long start) {
+        if (enabled) {
+            record(phase, start);
+        }
+    }
+
+    /**
+     * @return the number of calls of given phase, including this call.
+     */
+    private long record(Phase phase, long start) {
+        times[phase.ordinal()].add(System.nanoTime() - start);
+        return calls.incrementAndGet(phase.ordinal());
+    }
+
+    /**
+     * Records a propagation which started at {@code start} and
+     * produced a difference set of given size, and takes a snapshot
+     * every "metrics-interval" propagations.
+     */
+    public void stopPropagate(long start, int diffSize) {
+        if (enabled) {
+            long propagations = record(Phase.PROPAGATE, start);
+            deltaSizes.incrementAndGet(bucketOf(diffSize));
+            // the count returned by this propagation, so that exactly one
+            // of concurrent propagations takes the snapshot
+            if (interval > 0 && propagations % interval == 0) {
+                snapshots.add(new Snapshot(
+                        (System.nanoTime() - startTime) / 1_000_000,
+                        propagations,
+                        callGraph.getNumberOfMethods(),
+                        callGraph.getNumberOfEdges(),
+                        memory.getHeapMemoryUsage().getUsed()));
+            }
+        }
+    }
+
+    /**
+     * Records the number of contexts of each method, given the methods
+     * of all reachable context-sensitive methods.
+     */
+    public void recordContexts(Stream<JMethod> methods) {
+        if (enabled) {
+            Map<JMethod, Integer> contexts = Maps.newMap();
+            methods.forEach(m -> contexts.merge(m, 1, Integer::sum));
+            contexts.values().forEach(n -> contextsPerMethod.incrementAndGet(bucketOf(n)));
+        }
+    }
+
+    /**
+     * Records a counter reported by the solver.
+     */
+    public synchronized void addCounter(String name, long value) {
+        if (enabled) {
+            counters.put(name, value);
+        }
+    }
+
+    private static int bucketOf(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    private static String bucketName(int bucket) {
+        if (bucket <= 1) {
+            return Integer.toString(bucket);
+        }
+        return (1L << (bucket - 1)) + "-" + ((1L << bucket) - 1);
+    }
+
+    /**
+     * Writes the metrics to the output file.
+     *
+     * @return the output file, or null if the metrics are disabled.
+     */
+    public @Nullable String export() {
+        if (!enabled) {
+            return null;
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("elapsed-ms", (System.nanoTime() - startTime) / 1_000_000);
+        Map<String, Object> phases = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("calls", calls.get(phase.ordinal()));
+            stats.put("time-ms", times[phase.ordinal()].sum() / 1_000_000);
+            phases.put(phase.name, stats);
+        }
+        metrics.put("phases", phases);
+        metrics.put("counters", counters);
+        metrics.put("delta-sizes", toHistogram(deltaSizes));
+        Map<String, Object> contexts = toHistogram(contextsPerMethod);
+        if (!contexts.isEmpty()) {
+            metrics.put("contexts-per-method", contexts);
+        }
+        List<Object> snapshotList = new ArrayList<>();
+        synchronized (snapshots) {
+            snapshots.sort(Comparator.comparingLong(Snapshot::propagations));
+            for (Snapshot s : snapshots) {
+                Map<String, Object> snapshot = new LinkedHashMap<>();
+                snapshot.put("elapsed-ms", s.elapsedMillis());
+                snapshot.put("propagations", s.propagations());
+                snapshot.put("reachable-methods", s.reachableMethods());
+                snapshot.put("call-edges", s.callEdges());
+                snapshot.put("used-heap-mb", s.usedHeap() / (1024 * 1024));
+                snapshotList.add(snapshot);
+            }
+        }
+        metrics.put("snapshots", snapshotList);
+        try (PrintStream out = new PrintStream(new FileOutputStream(output))) {
+            if (csv) {
+                out.println("metric,value");
+                writeCSV(out, "", metrics);
+            } else {
+                writeJSON(out, metrics, "");
+                out.println();
+            }
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Failed to open metrics file", e);
+        }
+        return output;
+    }
+
+    private static Map<String, Object> toHistogram(AtomicLongArray buckets) {
+        Map<String, Object> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < buckets.length(); ++i) {
+            if (buckets.get(i) != 0) {
+                histogram.put(bucketName(i), buckets.get(i));
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Writes the metrics in long format, i.e., one row per metric,
+     * where the name of each metric is the path of its key.
+     */
+    private static void writeCSV(PrintStream out, String prefix, Object value) {
+        if (value instanceof Map<?, ?> map) {
+            map.forEach((k, v) -> writeCSV(out, prefix + k + ".", v));
+        } else if (value instanceof List<?> list) {
+            for (int i = 0; i < list.size(); ++i) {
+                writeCSV(out, prefix + i + ".", list.get(i));
+            }
+        } else {
+            out.println(prefix.substring(0, prefix.length() - 1) + "," + value);
+        }
+    }
+
+    private static void writeJSON(PrintStream out, Object value, String indent) {
+        String inner = indent + "  ";
+        if (value instanceof Map<?, ?> map) {
+            out.print("{");
+            String sep = "\n";
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                out.print(sep + inner + "\"" + e.getKey() + "\": ");
+                writeJSON(out, e.getValue(), inner);
+                sep = ",\n";
+            }
+            out.print(map.isEmpty() ? "}" : "\n" + indent + "}");
+        } else if (value instanceof List<?> list) {
+            out.print("[");
+            String sep = "\n";
+            for (Object o : list) {
+                out.print(sep + inner);
+                writeJSON(out, o, inner);
+                sep = ",\n";
+            }
+            out.print(list.isEmpty() ? "]" : "\n" + indent + "]");
+        } else {
+            out.print(value);
+        }
+    }
+}
@@ -23,35 +23,78 @@
 package pascal.taie.analysis.pta.core.cs.context;
 
 import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
 
-import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.StringJoiner;
 
 /**
  * List-based contexts. Each context is represented by a list of context elements.
+ * <p>
+ * Each context only keeps its parent (the context without the last element)
+ * and its last element, so appending an element to a context does not copy
+ * the list. Contexts are compared by their elements. The contexts interned
+ * by a {@link ListContextFactory} additionally form a trie, in which equal
+ * contexts are the same object, and the contexts derived from an interned
+ * context (by {@link #append} and {@link #truncate}) are interned by the
+ * same factory. While an analysis runs, the contexts made by {@link #make}
+ * are interned by the factory of the analysis
+ * (see {@link ListContextFactory#setCurrent}).
  *
  * @param <T> type of context elements
  */
 public class ListContext<T> implements Context {
 
     /**
-     * The empty context.
+     * The empty context that is not interned by any factory.
      */
-    private static final ListContext<?> EMPTY_CONTEXT = new ListContext<>(List.of());
+    private static final ListContext<?> EMPTY_CONTEXT = new ListContext<>(null, null, null, -1);
 
     /**
-     * List of elements in the context.
+     * The context without the last element, or null for the empty context.
      */
-    private final List<T> elements;
+    private final ListContext<T> parent;
 
-    private ListContext(List<T> elements) {
-        this.elements = elements;
+    /**
+     * The last element of the context.
+     */
+    private final T element;
+
+    private final int length;
+
+    private final int hashCode;
+
+    /**
+     * The factory that interned this context, or null if this context
+     * is not interned.
+     */
+    final ListContextFactory factory;
+
+    private final int id;
+
+    /**
+     * Interned contexts that extend this context by one element.
+     * Created on demand, as most contexts are leaves of the trie.
+     */
+    private Map<T, ListContext<T>> children;
+
+    ListContext(ListContext<T> parent, T element,
+                ListContextFactory factory, int id) {
+        this.parent = parent;
+        this.element = element;
+        this.length = parent == null ? 0 : parent.length + 1;
+        this.hashCode = parent == null ? 1 :
+                31 * parent.hashCode + Objects.hashCode(element);
+        this.factory = factory;
+        this.id = id;
     }
 
     /**
      * @return an empty context.
      */
     public static Context make() {
-        return EMPTY_CONTEXT;
+        return emptyContext();
     }
 
     /**
@@ -59,22 +102,135 @@ public class ListContext<T> implements Context {
      */
     @SafeVarargs
     public static <T> Context make(T... elements) {
-        return elements.length == 0 ?
-                EMPTY_CONTEXT : new ListContext<>(List.of(elements));
+        ListContext<T> context = emptyContext();
+        for (T element : elements) {
+            context = context.getChild(element);
+        }
+        return context;
+    }
+
+    /**
+     * Appends an element to a context and keeps at most the last
+     * {@code limit} elements, which is the common operation of
+     * k-limiting context selectors.
+     *
+     * @return the context [context..., element] truncated to given limit.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Context append(Context context, T element, int limit) {
+        ListContext<T> ctx = (ListContext<T>) context;
+        if (limit <= 0) {
+            return ctx.getRoot();
+        }
+        ListContext<T> prefix = (ListContext<T>) truncate(ctx, limit - 1);
+        return prefix.getChild(element);
+    }
+
+    /**
+     * @return the context consisting of the last {@code limit} elements
+     * of given context.
+     */
+    @SuppressWarnings("unchecked")
+    public static Context truncate(Context context, int limit) {
+        ListContext<Object> ctx = (ListContext<Object>) context;
+        if (ctx.length <= limit) {
+            return ctx;
+        }
+        if (limit <= 0) {
+            return ctx.getRoot();
+        }
+        Object[] elements = new Object[limit];
+        ListContext<Object> root = ctx.getRoot();
+        for (int i = limit - 1; i >= 0; --i) {
+            elements[i] = ctx.element;
+            ctx = ctx.parent;
+        }
+        return extend(root, elements, limit);
+    }
+
+    /**
+     * @return the empty context of the current factory, or the empty
+     * context that is not interned if there is no current factory.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> ListContext<T> emptyContext() {
+        ListContextFactory factory = ListContextFactory.getCurrent();
+        return factory != null ? factory.getRoot() : (ListContext<T>) EMPTY_CONTEXT;
+    }
+
+    /**
+     * @return the context [context..., elements[0..length)].
+     */
+    static <T> ListContext<T> extend(ListContext<T> context, T[] elements, int length) {
+        for (int i = 0; i < length; ++i) {
+            context = context.getChild(elements[i]);
+        }
+        return context;
+    }
+
+    /**
+     * @return the empty context of the factory that interned this context.
+     */
+    @SuppressWarnings("unchecked")
+    private ListContext<T> getRoot() {
+        return factory == null ? (ListContext<T>) EMPTY_CONTEXT : factory.getRoot();
+    }
+
+    private ListContext<T> getChild(T element) {
+        if (factory == null) {
+            return new ListContext<>(this, element, null, -1);
+        }
+        synchronized (this) {
+            if (children == null) {
+                children = Maps.newSmallMap();
+            }
+            ListContext<T> child = children.get(element);
+            if (child == null) {
+                child = new ListContext<>(this, element, factory, factory.nextId());
+                children.put(element, child);
+            }
+            return child;
+        }
+    }
+
+    /**
+     * @return the elements of this context.
+     */
+    @SuppressWarnings("unchecked")
+    T[] getElements() {
+        Object[] elements = new Object[length];
+        ListContext<T> context = this;
+        for (int i = length - 1; i >= 0; --i) {
+            elements[i] = context.element;
+            context = context.parent;
+        }
+        return (T[]) elements;
+    }
+
+    /**
+     * @return the id of this context given by its factory, or -1
+     * if this context is not interned.
+     */
+    int getId() {
+        return id;
     }
 
     @Override
     public int getLength() {
-        return elements.size();
+        return length;
     }
 
     @Override
     public Object getElementAt(int i) {
-        if (i >= elements.size()) {
+        if (i < 0 || i >= length) {
             throw new AnalysisException(
                     "Context " + this + " doesn't have " + i + "-th element");
         }
-        return elements.get(i);
+        ListContext<T> context = this;
+        for (int j = length - 1; j > i; --j) {
+            context = context.parent;
+        }
+        return context.element;
     }
 
     @Override
@@ -82,20 +238,37 @@ public class ListContext<T> implements Context {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (!(o instanceof ListContext<?> that)) {
             return false;
         }
-        ListContext<?> that = (ListContext<?>) o;
-        return elements.equals(that.elements);
+        if (factory != null && factory == that.factory) {
+            // interned by the same factory, but not the same object
+            return false;
+        }
+        ListContext<?> context = this;
+        while (context != that) {
+            if (context.length != that.length ||
+                    context.hashCode != that.hashCode ||
+                    !Objects.equals(context.element, that.element)) {
+                return false;
+            }
+            context = context.parent;
+            that = that.parent;
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return elements.hashCode();
+        return hashCode;
     }
 
     @Override
     public String toString() {
-        return elements.toString();
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (Object element : getElements()) {
+            joiner.add(String.valueOf(element));
+        }
+        return joiner.toString();
     }
 }
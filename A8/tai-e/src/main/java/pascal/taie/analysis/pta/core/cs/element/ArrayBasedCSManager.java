@@ -0,0 +1,459 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.element;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.ListContextFactory;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Array-based implementation of {@link CSManager}.
+ * <p>
+ * Each context is assigned a dense id once ({@link ListContext}s are
+ * interned by the {@link ListContextFactory} of the analysis, which gives
+ * their ids), and the context-sensitive variables/objects are stored in
+ * slot tables of their variables/objects keyed by context ids.
+ * Variables and the objects of allocation sites are located by their
+ * indexes in the containing method ({@link Var#getIndex()} and
+ * {@link New#getIndex()}), and instance fields and array indexes are
+ * located by the indexes of their base objects ({@link CSObjIndexer}).
+ * Thus, the frequent queries of {@link #getCSVar}, {@link #getCSObj},
+ * {@link #getInstanceField} and {@link #getArrayIndex} neither hash the
+ * variables/objects nor allocate any key objects; only the containing
+ * method is looked up, once for consecutive queries in the same method.
+ * <p>
+ * Objects without allocation sites (e.g., constants and merged objects)
+ * and contexts that are not {@link ListContext}s are rare, and they are
+ * assigned their ids through hash maps.
+ */
+public class ArrayBasedCSManager implements CSManager {
+
+    /**
+     * Interns the {@link ListContext}s of the context-sensitive elements,
+     * so that the elements of the same context share one context object.
+     */
+    private final ListContextFactory contextFactory;
+
+    /**
+     * Ids of contexts that are not {@link ListContext}s. These ids are
+     * less than -1, so they never clash with the ids of {@link ListContext}s
+     * and never map to the empty key in {@link Slots}.
+     */
+    private final Map<Context, Integer> contextIds = Maps.newMap();
+
+    /**
+     * Ids of abstract objects without allocation sites,
+     * indexing {@link #objSlots}.
+     */
+    private final Map<Obj, Integer> objIds = Maps.newMap();
+
+    /**
+     * Indexer of context-sensitive objects, indexing {@link #fieldSlots}
+     * and {@link #arraySlots}.
+     */
+    private final CSObjIndexer objIndexer;
+
+    /**
+     * Slots of variables, indexed by {@link Var#getIndex()}.
+     */
+    private final MethodSlots<CSVar> varSlots = new MethodSlots<>();
+
+    /**
+     * Slots of the objects of allocation sites, indexed by
+     * {@link New#getIndex()}.
+     */
+    private final MethodSlots<CSObj> newObjSlots = new MethodSlots<>();
+
+    /**
+     * Slots of the objects without allocation sites, indexed by {@link #objIds}.
+     */
+    private Slots<CSObj>[] objSlots = newSlotsArray(64);
+
+    private Map<JField, InstanceField>[] fieldSlots = newMapArray(64);
+
+    private ArrayIndex[] arraySlots = new ArrayIndex[64];
+
+    private final List<Var> vars = new ArrayList<>();
+
+    private final List<CSVar> csVars = new ArrayList<>();
+
+    private final List<CSObj> csObjs = new ArrayList<>();
+
+    private final List<InstanceField> instanceFields = new ArrayList<>();
+
+    private final List<ArrayIndex> arrayIndexes = new ArrayList<>();
+
+    private final TwoKeyMap<Invoke, Context, CSCallSite> callSites = Maps.newTwoKeyMap();
+
+    private final TwoKeyMap<JMethod, Context, CSMethod> methods = Maps.newTwoKeyMap();
+
+    private final Map<JField, StaticField> staticFields = Maps.newMap();
+
+    /**
+     * @param objIndexer     indexer of context-sensitive objects created by
+     *                       this manager. If bit-set-based points-to sets are
+     *                       used, it must be the indexer shared by them.
+     * @param contextFactory factory of the contexts of the analysis.
+     */
+    public ArrayBasedCSManager(CSObjIndexer objIndexer,
+                               ListContextFactory contextFactory) {
+        this.objIndexer = objIndexer;
+        this.contextFactory = contextFactory;
+    }
+
+    /**
+     * Pre-sizes the slot tables of the variables of this manager, so that
+     * they need not grow while the variables are created. The other tables
+     * are not pre-sized: the objects are indexed by their allocation sites
+     * in each method, and the tables indexed by context-sensitive objects
+     * depend on the number of heap contexts, which is not known in advance.
+     *
+     * @param varCounts the number of variables of each method which is
+     *                  expected to be reachable.
+     */
+    public void reserve(Map<JMethod, Integer> varCounts) {
+        varCounts.forEach(varSlots::reserve);
+    }
+
+    @Override
+    public CSVar getCSVar(Context context, Var var) {
+        Slots<CSVar> slots = varSlots.get(var.getMethod(), var.getIndex());
+        context = intern(context);
+        int contextId = getContextId(context);
+        CSVar csVar = slots.get(contextId);
+        if (csVar == null) {
+            if (slots.size == 0) {
+                vars.add(var);
+            }
+            csVar = new CSVar(var, context);
+            csVar.setPointsToSet(PointsToSetFactory.makeForPointer());
+            slots.put(contextId, csVar);
+            csVars.add(csVar);
+        }
+        return csVar;
+    }
+
+    @Override
+    public CSObj getCSObj(Context heapContext, Obj obj) {
+        // the heap model gives one object for each allocation site
+        Slots<CSObj> slots = obj.getAllocation() instanceof New allocSite ?
+                newObjSlots.get(allocSite.getContainer(), allocSite.getIndex()) :
+                getObjSlots(obj);
+        heapContext = intern(heapContext);
+        int contextId = getContextId(heapContext);
+        CSObj csObj = slots.get(contextId);
+        if (csObj == null) {
+            csObj = new CSObj(obj, heapContext);
+            objIndexer.getIndex(csObj);
+            slots.put(contextId, csObj);
+            csObjs.add(csObj);
+        }
+        return csObj;
+    }
+
+    private Slots<CSObj> getObjSlots(Obj obj) {
+        int objId = objIds.computeIfAbsent(obj, o -> objIds.size());
+        if (objId >= objSlots.length) {
+            objSlots = Arrays.copyOf(objSlots, objSlots.length * 2);
+        }
+        Slots<CSObj> slots = objSlots[objId];
+        if (slots == null) {
+            slots = objSlots[objId] = new Slots<>();
+        }
+        return slots;
+    }
+
+    @Override
+    public CSCallSite getCSCallSite(Context context, Invoke callSite) {
+        return callSites.computeIfAbsent(callSite, intern(context), CSCallSite::new);
+    }
+
+    @Override
+    public CSMethod getCSMethod(Context context, JMethod method) {
+        return methods.computeIfAbsent(method, intern(context), CSMethod::new);
+    }
+
+    @Override
+    public StaticField getStaticField(JField field) {
+        return staticFields.computeIfAbsent(field, f -> {
+            StaticField staticField = new StaticField(f);
+            staticField.setPointsToSet(PointsToSetFactory.makeForPointer());
+            return staticField;
+        });
+    }
+
+    @Override
+    public InstanceField getInstanceField(CSObj base, JField field) {
+        int index = objIndexer.getIndex(base);
+        if (index >= fieldSlots.length) {
+            fieldSlots = Arrays.copyOf(fieldSlots,
+                    Math.max(index + 1, fieldSlots.length * 2));
+        }
+        Map<JField, InstanceField> fields = fieldSlots[index];
+        if (fields == null) {
+            fields = fieldSlots[index] = Maps.newSmallMap();
+        }
+        InstanceField instanceField = fields.get(field);
+        if (instanceField == null) {
+            instanceField = new InstanceField(base, field);
+            instanceField.setPointsToSet(PointsToSetFactory.makeForPointer());
+            fields.put(field, instanceField);
+            instanceFields.add(instanceField);
+        }
+        return instanceField;
+    }
+
+    @Override
+    public ArrayIndex getArrayIndex(CSObj array) {
+        int index = objIndexer.getIndex(array);
+        if (index >= arraySlots.length) {
+            arraySlots = Arrays.copyOf(arraySlots,
+                    Math.max(index + 1, arraySlots.length * 2));
+        }
+        ArrayIndex arrayIndex = arraySlots[index];
+        if (arrayIndex == null) {
+            arrayIndex = arraySlots[index] = new ArrayIndex(array);
+            arrayIndex.setPointsToSet(PointsToSetFactory.makeForPointer());
+            arrayIndexes.add(arrayIndex);
+        }
+        return arrayIndex;
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return Collections.unmodifiableList(vars);
+    }
+
+    @Override
+    public Collection<CSVar> getCSVarsOf(Var var) {
+        Slots<CSVar> slots = varSlots.find(var.getMethod(), var.getIndex());
+        return slots != null ? slots.values() : List.of();
+    }
+
+    @Override
+    public Collection<CSVar> getCSVars() {
+        return Collections.unmodifiableList(csVars);
+    }
+
+    @Override
+    public Collection<CSObj> getObjects() {
+        return Collections.unmodifiableList(csObjs);
+    }
+
+    @Override
+    public Collection<StaticField> getStaticFields() {
+        return Collections.unmodifiableCollection(staticFields.values());
+    }
+
+    @Override
+    public Collection<InstanceField> getInstanceFields() {
+        return Collections.unmodifiableList(instanceFields);
+    }
+
+    @Override
+    public Collection<ArrayIndex> getArrayIndexes() {
+        return Collections.unmodifiableList(arrayIndexes);
+    }
+
+    /**
+     * @return the context interned by {@link #contextFactory} if given
+     * context is a {@link ListContext}, otherwise given context itself.
+     */
+    private Context intern(Context context) {
+        return context instanceof ListContext<?> listContext ?
+                contextFactory.intern(listContext) : context;
+    }
+
+    /**
+     * @return the id of given context. {@link ListContext}s take the ids
+     * given by {@link #contextFactory}; other contexts are assigned
+     * the next free id on their first query.
+     */
+    private int getContextId(Context context) {
+        if (context instanceof ListContext<?> listContext) {
+            return contextFactory.getId(listContext);
+        }
+        return contextIds.computeIfAbsent(context, c -> -2 - contextIds.size());
+    }
+
+    // Generic arrays cannot be created directly. The casts are safe as
+    // the arrays are private and only store elements of the cast types.
+    @SuppressWarnings("unchecked")
+    private static <E> Slots<E>[] newSlotsArray(int length) {
+        return (Slots<E>[]) new Slots<?>[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<JField, InstanceField>[] newMapArray(int length) {
+        return (Map<JField, InstanceField>[]) new Map<?, ?>[length];
+    }
+
+    /**
+     * Slots of the elements of methods, grouped by the containing methods
+     * and indexed by the indexes of the elements in their methods.
+     */
+    private static final class MethodSlots<E> {
+
+        private final Map<JMethod, Slots<E>[]> tables = Maps.newMap();
+
+        /**
+         * Cache of the last queried method and its table. Consecutive
+         * queries usually involve the elements of the same method.
+         */
+        private JMethod lastMethod;
+
+        private Slots<E>[] lastTable;
+
+        /**
+         * @return the slots of given index in given method, which are
+         * created if absent.
+         */
+        private Slots<E> get(JMethod method, int index) {
+            if (method != lastMethod) {
+                Slots<E>[] table = tables.get(method);
+                if (table == null) {
+                    table = newSlotsArray(8);
+                    tables.put(method, table);
+                }
+                lastMethod = method;
+                lastTable = table;
+            }
+            if (index >= lastTable.length) {
+                lastTable = Arrays.copyOf(lastTable,
+                        Math.max(index + 1, lastTable.length * 2));
+                tables.put(method, lastTable);
+            }
+            Slots<E> slots = lastTable[index];
+            if (slots == null) {
+                slots = lastTable[index] = new Slots<>();
+            }
+            return slots;
+        }
+
+        /**
+         * @return the slots of given index in given method, or null if absent.
+         */
+        private Slots<E> find(JMethod method, int index) {
+            Slots<E>[] table = tables.get(method);
+            return table != null && index < table.length ? table[index] : null;
+        }
+
+        /**
+         * Pre-sizes the table of given method to hold {@code count} elements.
+         */
+        private void reserve(JMethod method, int count) {
+            Slots<E>[] table = tables.get(method);
+            if (table == null || table.length < count) {
+                tables.put(method, table == null ?
+                        newSlotsArray(count) : Arrays.copyOf(table, count));
+            }
+            lastMethod = null;
+        }
+    }
+
+    /**
+     * Open-addressing hash table from context ids to elements.
+     * Most variables and objects only have a few contexts, thus the table
+     * starts small and is probed linearly over unboxed int keys.
+     */
+    private static final class Slots<E> {
+
+        /**
+         * Context ids plus one; 0 marks an empty slot.
+         */
+        private int[] keys = new int[4];
+
+        private Object[] values = new Object[4];
+
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        private E get(int contextId) {
+            int key = contextId + 1;
+            int mask = keys.length - 1;
+            for (int i = contextId & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return (E) values[i];
+                }
+            }
+            return null;
+        }
+
+        private void put(int contextId, E value) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                rehash(keys.length * 2);
+            }
+            insert(contextId + 1, value);
+            ++size;
+        }
+
+        private void insert(int key, Object value) {
+            int mask = keys.length - 1;
+            int i = (key - 1) & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new int[capacity];
+            values = new Object[capacity];
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldKeys[i] != 0) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Collection<E> values() {
+            List<E> result = new ArrayList<>(size);
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] != 0) {
+                    result.add((E) values[i]);
+                }
+            }
+            return result;
+        }
+    }
+}
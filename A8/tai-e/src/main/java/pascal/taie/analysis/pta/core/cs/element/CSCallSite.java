@@ -45,7 +45,7 @@ public class CSCallSite extends AbstractCSElement {
     /**
      * Call edges from this call site.
      */
-    private final Set<Edge<CSCallSite, CSMethod>> edges = Sets.newHybridSet();
+    private Set<Edge<CSCallSite, CSMethod>> edges = Sets.newHybridSet();
 
     CSCallSite(Invoke callSite, Context context) {
         super(context);
@@ -76,6 +76,14 @@ public class CSCallSite extends AbstractCSElement {
         return Collections.unmodifiableSet(edges);
     }
 
+    /**
+     * Releases the call edges from this call site, e.g., after the call graph
+     * has been compacted. No edges can be added afterwards.
+     */
+    public void clearEdges() {
+        edges = Set.of();
+    }
+
     @Override
     public String toString() {
         return context + ":" + callSite;
@@ -0,0 +1,167 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.selector;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decorator of {@link ContextSelector} that memoizes the selected contexts.
+ * <p>
+ * The contexts are cached by the contexts of the inputs instead of the
+ * context-sensitive inputs themselves, as each context-sensitive call site
+ * (with each receiver object) and each context-sensitive method is
+ * selected only once by the solver. The method contexts are cached by
+ * (call-site context, receiver heap context, receiver object, callee),
+ * and the heap contexts by (method context, method), which are shared
+ * by different call sites in the same method and by different objects
+ * allocated in the same method. Thus, this decorator only works for the
+ * selectors whose heap contexts do not depend on the allocated objects,
+ * and whose method contexts do not depend on the call sites, unless
+ * {@code usesCallSites} is true, in which case the call site is also
+ * part of the key. The cache is bounded: once it holds the given
+ * number of contexts, the least recently used ones are evicted.
+ * <p>
+ * This class is thread-safe if the underlying selector is thread-safe.
+ */
+public class CachingContextSelector implements ContextSelector {
+
+    private final ContextSelector selector;
+
+    private final boolean usesCallSites;
+
+    private final Map<Key, Context> cache;
+
+    private long hits;
+
+    private long misses;
+
+    /**
+     * @param selector      the underlying selector.
+     * @param capacity      maximum number of cached contexts.
+     * @param usesCallSites whether the method contexts selected by
+     *                      the underlying selector depend on the call sites.
+     */
+    public CachingContextSelector(ContextSelector selector, int capacity,
+                                  boolean usesCallSites) {
+        this.selector = selector;
+        this.usesCallSites = usesCallSites;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Context> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public Context getEmptyContext() {
+        return selector.getEmptyContext();
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, JMethod callee) {
+        Key key = new Key(callSite.getContext(), getCallSite(callSite),
+                null, null, callee);
+        Context context = lookup(key);
+        if (context == null) {
+            context = selector.selectContext(callSite, callee);
+            store(key, context);
+        }
+        return context;
+    }
+
+    @Override
+    public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
+        Key key = new Key(callSite.getContext(), getCallSite(callSite),
+                recv.getContext(), recv.getObject(), callee);
+        Context context = lookup(key);
+        if (context == null) {
+            context = selector.selectContext(callSite, recv, callee);
+            store(key, context);
+        }
+        return context;
+    }
+
+    @Override
+    public Context selectHeapContext(CSMethod method, Obj obj) {
+        Key key = new Key(method.getContext(), null,
+                null, null, method.getMethod());
+        Context context = lookup(key);
+        if (context == null) {
+            context = selector.selectHeapContext(method, obj);
+            store(key, context);
+        }
+        return context;
+    }
+
+    @Nullable
+    private Invoke getCallSite(CSCallSite callSite) {
+        return usesCallSites ? callSite.getCallSite() : null;
+    }
+
+    private synchronized Context lookup(Key key) {
+        Context context = cache.get(key);
+        if (context != null) {
+            ++hits;
+        } else {
+            ++misses;
+        }
+        return context;
+    }
+
+    private synchronized void store(Key key, Context context) {
+        cache.put(key, context);
+    }
+
+    /**
+     * @return the number of selections answered by the cache.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of selections delegated to the underlying selector.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Inputs of a context selection. Unused inputs are null.
+     */
+    private record Key(Context context, @Nullable Invoke callSite,
+                       @Nullable Context recvContext, @Nullable Obj recv,
+                       JMethod method) {
+    }
+}
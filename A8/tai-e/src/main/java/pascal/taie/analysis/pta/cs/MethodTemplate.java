@@ -0,0 +1,246 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Constraints of a method that are instantiated when the method becomes
+ * reachable under a context, i.e., allocations, copies, static field
+ * accesses and static calls. Each method is compiled once into flat arrays
+ * that refer to variables by their indexes ({@link Var#getIndex()}),
+ * so instantiating the template for a new context neither walks the IR
+ * nor visits statements, and looks up each variable at most once.
+ * <p>
+ * Instance field/array accesses and instance calls are not included,
+ * as they are processed when the points-to sets of their base variables
+ * change, and the IR already indexes them by variables
+ * (e.g., {@link Var#getLoadFields()}).
+ */
+final class MethodTemplate {
+
+    /**
+     * Receives the constraints of an instantiated template.
+     */
+    interface Handler {
+
+        /**
+         * Handles allocation "lhs = new T()" of given object.
+         */
+        void onNew(CSVar lhs, Obj obj);
+
+        /**
+         * Handles copy "target = source".
+         */
+        void onCopy(CSVar source, CSVar target);
+
+        /**
+         * Handles static field load "lhs = T.f".
+         */
+        void onStaticLoad(StaticField field, CSVar lhs);
+
+        /**
+         * Handles static field store "T.f = rhs".
+         */
+        void onStaticStore(CSVar rhs, StaticField field);
+
+        /**
+         * Handles static call "r = T.m(...)".
+         */
+        void onStaticCall(CSCallSite callSite);
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Variables of the method, indexed by {@link Var#getIndex()}.
+     */
+    private final List<Var> vars;
+
+    private final int[] newTargets;
+
+    private final Obj[] newObjs;
+
+    private final int[] copySources;
+
+    private final int[] copyTargets;
+
+    private final int[] loadTargets;
+
+    private final StaticField[] loadFields;
+
+    private final int[] storeSources;
+
+    private final StaticField[] storeFields;
+
+    private final Invoke[] staticCalls;
+
+    private MethodTemplate(List<Var> vars,
+                           int[] newTargets, Obj[] newObjs,
+                           int[] copySources, int[] copyTargets,
+                           int[] loadTargets, StaticField[] loadFields,
+                           int[] storeSources, StaticField[] storeFields,
+                           Invoke[] staticCalls) {
+        this.vars = vars;
+        this.newTargets = newTargets;
+        this.newObjs = newObjs;
+        this.copySources = copySources;
+        this.copyTargets = copyTargets;
+        this.loadTargets = loadTargets;
+        this.loadFields = loadFields;
+        this.storeSources = storeSources;
+        this.storeFields = storeFields;
+        this.staticCalls = staticCalls;
+    }
+
+    /**
+     * Compiles the template of given method.
+     * The static field pointers are resolved by given CSManager,
+     * thus the template is only valid for the analysis using it.
+     */
+    static MethodTemplate compile(JMethod method, HeapModel heapModel,
+                                  CSManager csManager) {
+        IR ir = method.getIR();
+        Ints newTargets = new Ints();
+        List<Obj> newObjs = new ArrayList<>();
+        Ints copySources = new Ints();
+        Ints copyTargets = new Ints();
+        Ints loadTargets = new Ints();
+        List<StaticField> loadFields = new ArrayList<>();
+        Ints storeSources = new Ints();
+        List<StaticField> storeFields = new ArrayList<>();
+        List<Invoke> staticCalls = new ArrayList<>();
+        for (Stmt stmt : ir) {
+            if (stmt instanceof New newStmt) {
+                newTargets.add(newStmt.getLValue().getIndex());
+                newObjs.add(heapModel.getObj(newStmt));
+            } else if (stmt instanceof Copy copy) {
+                copySources.add(copy.getRValue().getIndex());
+                copyTargets.add(copy.getLValue().getIndex());
+            } else if (stmt instanceof LoadField load && load.isStatic()) {
+                loadTargets.add(load.getLValue().getIndex());
+                loadFields.add(csManager.getStaticField(
+                        load.getFieldRef().resolve()));
+            } else if (stmt instanceof StoreField store && store.isStatic()) {
+                storeSources.add(store.getRValue().getIndex());
+                storeFields.add(csManager.getStaticField(
+                        store.getFieldRef().resolve()));
+            } else if (stmt instanceof Invoke invoke && invoke.isStatic()) {
+                staticCalls.add(invoke);
+            }
+        }
+        return new MethodTemplate(ir.getVars(),
+                newTargets.toArray(), newObjs.toArray(new Obj[0]),
+                copySources.toArray(), copyTargets.toArray(),
+                loadTargets.toArray(), loadFields.toArray(new StaticField[0]),
+                storeSources.toArray(), storeFields.toArray(new StaticField[0]),
+                staticCalls.toArray(new Invoke[0]));
+    }
+
+    /**
+     * Instantiates this template under given context, and passes the
+     * resulting constraints to the handler, in the order of allocations,
+     * copies, static loads, static stores and static calls.
+     */
+    void instantiate(Context context, CSManager csManager, Handler handler) {
+        CSVar[] csVars = new CSVar[vars.size()];
+        for (int i = 0; i < newTargets.length; ++i) {
+            handler.onNew(getCSVar(csVars, newTargets[i], context, csManager),
+                    newObjs[i]);
+        }
+        for (int i = 0; i < copySources.length; ++i) {
+            handler.onCopy(getCSVar(csVars, copySources[i], context, csManager),
+                    getCSVar(csVars, copyTargets[i], context, csManager));
+        }
+        for (int i = 0; i < loadTargets.length; ++i) {
+            handler.onStaticLoad(loadFields[i],
+                    getCSVar(csVars, loadTargets[i], context, csManager));
+        }
+        for (int i = 0; i < storeSources.length; ++i) {
+            handler.onStaticStore(
+                    getCSVar(csVars, storeSources[i], context, csManager),
+                    storeFields[i]);
+        }
+        for (Invoke callSite : staticCalls) {
+            handler.onStaticCall(csManager.getCSCallSite(context, callSite));
+        }
+    }
+
+    private CSVar getCSVar(CSVar[] csVars, int index,
+                           Context context, CSManager csManager) {
+        CSVar csVar = csVars[index];
+        if (csVar == null) {
+            csVar = csVars[index] = csManager.getCSVar(context, vars.get(index));
+        }
+        return csVar;
+    }
+
+    /**
+     * @return the number of constraints in this template.
+     */
+    int size() {
+        return newTargets.length + copySources.length + loadTargets.length +
+                storeSources.length + staticCalls.length;
+    }
+
+    /**
+     * Growable int array for compiling templates.
+     */
+    private static class Ints {
+
+        private int[] elements = EMPTY;
+
+        private int size;
+
+        private void add(int i) {
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements,
+                        Math.max(4, size * 2));
+            }
+            elements[size++] = i;
+        }
+
+        private int[] toArray() {
+            return size == 0 ? EMPTY : Arrays.copyOf(elements, size);
+        }
+    }
+}
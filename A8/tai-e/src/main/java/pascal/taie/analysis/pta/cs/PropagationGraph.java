@@ -0,0 +1,57 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.util.graph.Graph;
+
+/**
+ * Pointer flow graph as seen by the solver when it propagates points-to
+ * sets. Implemented by {@link PointerFlowGraph} for sequential solving,
+ * and by {@link ConcurrentPointerFlowGraph} for parallel solving.
+ */
+interface PropagationGraph extends Graph<Pointer> {
+
+    /**
+     * Adds an edge (source -> target) to this PFG.
+     *
+     * @return true if this PFG changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addEdge(Pointer source, Pointer target);
+
+    /**
+     * @return the number of edges of this PFG.
+     */
+    int getNumberOfEdges();
+
+    /**
+     * @return the number of pointers merged into other pointers.
+     */
+    int getNumberOfCollapsedNodes();
+
+    /**
+     * @return the number of cycles collapsed so far.
+     */
+    int getNumberOfCollapsedCycles();
+}
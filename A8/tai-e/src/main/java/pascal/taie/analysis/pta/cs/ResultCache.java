@@ -0,0 +1,210 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.config.Options;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cache of pointer analysis results in the directory given by option
+ * "result-cache". Each result is stored in a {@link ResultFile} named
+ * by the SHA-256 hash of the analyzed program (the main class, and the
+ * contents of the files in the class path), the {@link #RESULT_OPTIONS}
+ * of the analysis, and the code of the analysis and the framework, so a
+ * later run of the same code on the same program with the same options
+ * loads the result instead of solving it again, even if it computes or
+ * outputs the result differently.
+ */
+class ResultCache {
+
+    private static final Logger logger = LogManager.getLogger(ResultCache.class);
+
+    /**
+     * Options which affect the result, thus they are included in the key
+     * of the result. The other options only affect how the result is
+     * computed (e.g., "pts" and "threads") or output (e.g., "action").
+     */
+    private static final List<String> RESULT_OPTIONS = List.of(
+            "cs", "merge-string-constants", "merge-string-objects",
+            "merge-string-builders", "merge-exception-objects",
+            "skip-singleton-contexts", "ci-pre-analysis", "scaler-tst",
+            "filter-types", "heap-budget", "time-budget", "taint-config");
+
+    /**
+     * Classes of the analysis and the framework, whose jars or class
+     * directories are included in the key of the result, so that the
+     * results of other versions of the code are not loaded.
+     */
+    private static final List<Class<?>> CODE_CLASSES = List.of(
+            ResultCache.class, World.class);
+
+    private final Path file;
+
+    private ResultCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the cache given by the options, or null if option
+     * "result-cache" is not set. The cache is also disabled when
+     * taint analysis is enabled, as its results are not stored.
+     * @throws ConfigException if option "incremental-state" is also set,
+     *                         as a loaded result has no solver state
+     *                         to save for the next incremental run.
+     */
+    static @Nullable ResultCache of(AnalysisOptions options) {
+        String dir = options.getString("result-cache");
+        if (dir == null) {
+            return null;
+        }
+        if (options.getString("incremental-state") != null) {
+            throw new ConfigException(
+                    "result cache does not support incremental solving");
+        }
+        if (options.getString("taint-config") != null) {
+            logger.info("Result cache is disabled for taint analysis");
+            return null;
+        }
+        return new ResultCache(Path.of(dir).resolve(computeKey(options) + ".pta"));
+    }
+
+    private static String computeKey(AnalysisOptions options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Options worldOptions = World.get().getOptions();
+            for (String key : RESULT_OPTIONS) {
+                update(digest, key + "=" + options.get(key));
+            }
+            for (Class<?> c : CODE_CLASSES) {
+                hashCodeSource(digest, c);
+            }
+            update(digest, worldOptions.getMainClass());
+            update(digest, String.valueOf(worldOptions.isPrependJVM()));
+            update(digest, String.valueOf(worldOptions.getJavaVersion()));
+            String classPath = worldOptions.getClassPath();
+            if (classPath != null) {
+                for (String entry : classPath.split(File.pathSeparator)) {
+                    hashPath(digest, Path.of(entry));
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not supported", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash class path or code", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(String.valueOf(s).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Hashes the jar or class directory from which given class is loaded.
+     */
+    private static void hashCodeSource(MessageDigest digest, Class<?> c)
+            throws IOException {
+        CodeSource source = c.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            throw new IOException("Unknown code source of " + c.getName());
+        }
+        try {
+            hashPath(digest, Path.of(source.getLocation().toURI()));
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid code source of " + c.getName(), e);
+        }
+    }
+
+    /**
+     * Hashes the paths and contents of the files in given path.
+     */
+    private static void hashPath(MessageDigest digest, Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(path)) {
+            files = paths.filter(Files::isRegularFile).sorted().toList();
+        }
+        for (Path f : files) {
+            update(digest, f.toString());
+            digest.update(Files.readAllBytes(f));
+        }
+    }
+
+    /**
+     * @return the cached result, or null if there is no cached result
+     * or it cannot be loaded.
+     */
+    @Nullable PointerAnalysisResult load(HeapModel heapModel) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            PointerAnalysisResult result = ResultFile.read(file, heapModel);
+            logger.info("Loaded pointer analysis result from {}", file);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to load pointer analysis result from {}: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores given result, unless it cannot be stored.
+     */
+    void store(PointerAnalysisResult result) {
+        try {
+            ResultFile.write(result, file);
+            logger.info("Stored pointer analysis result to {}", file);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Failed to store pointer analysis result to {}: {}", file, e);
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
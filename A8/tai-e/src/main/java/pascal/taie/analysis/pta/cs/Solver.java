@@ -25,23 +25,28 @@ package pascal.taie.analysis.pta.cs;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
-import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DispatchTable;
 import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.PointerAnalysisResultImpl;
+import pascal.taie.analysis.pta.SolverMetrics;
 import pascal.taie.analysis.pta.core.cs.CSCallGraph;
 import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.context.ListContextFactory;
+import pascal.taie.analysis.pta.core.cs.element.ArrayBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
 import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.MapBasedCSManager;
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.cs.element.SynchronizedCSManager;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
@@ -49,6 +54,7 @@ import pascal.taie.analysis.pta.plugin.taint.TaintAnalysiss;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
 import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Copy;
@@ -62,6 +68,18 @@ import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Solver {
 
@@ -73,13 +91,55 @@ public class Solver {
 
     private final ContextSelector contextSelector;
 
+    /**
+     * The context selector if it degrades context sensitivity when the
+     * analysis exceeds its {@link Budget}, otherwise null. The solver also
+     * checks the budget while propagating, as propagation may take long
+     * without selecting any context.
+     */
+    private final DegradingContextSelector degradingSelector;
+
+    /**
+     * Number of threads for solving the analysis.
+     */
+    private final int threads;
+
+    /**
+     * Interns the contexts of this solver, see {@link ListContextFactory#setCurrent}.
+     */
+    private final ListContextFactory contextFactory = new ListContextFactory();
+
+    private CSObjIndexer objIndexer;
+
     private CSManager csManager;
 
     private CSCallGraph callGraph;
 
-    private PointerFlowGraph pointerFlowGraph;
+    private PropagationGraph pointerFlowGraph;
 
-    private WorkList workList;
+    private PropagationQueue workList;
+
+    /**
+     * Filter of the objects propagated along PFG edges,
+     * or null if option "filter-types" is not set.
+     */
+    private TypeFilter typeFilter;
+
+    /**
+     * Metrics of this run, exported if option "metrics" is set.
+     */
+    private SolverMetrics metrics;
+
+    /**
+     * Result of the context-insensitive pre-analysis,
+     * or null if option "ci-pre-analysis" is not set.
+     */
+    private PreAnalysis preAnalysis;
+
+    /**
+     * Constraint templates of the methods that have been reachable.
+     */
+    private final Map<JMethod, MethodTemplate> templates = Maps.newConcurrentMap();
 
     private TaintAnalysiss taintAnalysis;
 
@@ -90,6 +150,10 @@ public class Solver {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.degradingSelector = contextSelector instanceof
+                DegradingContextSelector selector ? selector : null;
+        this.threads = options.get("threads") != null ?
+                options.getInt("threads") : 1;
     }
 
     public AnalysisOptions getOptions() {
@@ -105,18 +169,210 @@ public class Solver {
     }
 
     void solve() {
+        try {
+            initialize();
+            long start = metrics.start();
+            addEntryMethod();
+            metrics.stop(SolverMetrics.Phase.ENTRY_METHODS, start);
+            if (workList instanceof ParallelWorkList parallelWorkList) {
+                analyzeInParallel(parallelWorkList);
+            } else {
+                analyze((WorkList) workList);
+            }
+            taintAnalysis.onFinish();
+        } finally {
+            PointsToSetFactory.reset();
+            ListContextFactory.setCurrent(null);
+        }
+        logger.info("{} work-list entries propagated in {} order, {} merged",
+                workList.getPolledEntries(),
+                Objects.requireNonNullElse(options.getString("work-list-order"), "fifo"),
+                workList.getMergedEntries());
+        if (workList instanceof PriorityWorkList priorityWorkList &&
+                priorityWorkList.getTopoSorts() > 0) {
+            logger.info("PFG sorted topologically {} times",
+                    priorityWorkList.getTopoSorts());
+        }
+        logger.info("{} PFG nodes collapsed in {} cycles",
+                pointerFlowGraph.getNumberOfCollapsedNodes(),
+                pointerFlowGraph.getNumberOfCollapsedCycles());
+        if (typeFilter != null) {
+            logger.info("{} objects filtered by PFG edge types",
+                    typeFilter.getFilteredObjects());
+        }
+        exportMetrics();
+    }
+
+    /**
+     * Solves the analysis incrementally from the state of a previous run
+     * on the program before given classes changed. The facts of the state
+     * which are not affected by the changed classes are restored without
+     * propagating them, and the affected part is derived again from the
+     * frontier pointers and methods, which results in the same fixed
+     * point as {@link #solve()}.
+     *
+     * @param previous       state of the previous run, captured by {@link #getState()}
+     * @param changedClasses names of the changed classes
+     * @throws IllegalStateException if the state cannot be restored
+     *                               in the current world
+     */
+    void solve(SolverState previous, Set<String> changedClasses) {
+        checkIncremental(options);
+        try {
+            solveIncrementally(previous, changedClasses);
+        } finally {
+            PointsToSetFactory.reset();
+            ListContextFactory.setCurrent(null);
+        }
+        exportMetrics();
+    }
+
+    private void solveIncrementally(SolverState previous, Set<String> changedClasses) {
         initialize();
-        analyze();
-        taintAnalysis.onFinish();
+        List<CSMethod> reprocessed = new ArrayList<>();
+        previous.restore(changedClasses, csManager, heapModel, new SolverState.Handler() {
+            @Override
+            public void onReachableMethod(CSMethod csMethod) {
+                callGraph.addReachableMethod(csMethod);
+            }
+
+            @Override
+            public void onCallEdge(Edge<CSCallSite, CSMethod> edge) {
+                callGraph.addEdge(edge);
+            }
+
+            @Override
+            public void onPFGEdge(Pointer source, Pointer target) {
+                pointerFlowGraph.addEdge(source, target);
+            }
+
+            @Override
+            public void onPointsToSet(Pointer pointer, PointsToSet pointsToSet,
+                                      boolean frontier) {
+                if (frontier) {
+                    workList.addEntry(pointer, pointsToSet);
+                } else {
+                    pointer.setPointsToSet(pointsToSet);
+                }
+            }
+
+            @Override
+            public void onReprocessedMethod(CSMethod csMethod) {
+                reprocessed.add(csMethod);
+            }
+        });
+        long start = metrics.start();
+        addEntryMethod();
+        reprocessed.forEach(this::addReachable);
+        metrics.stop(SolverMetrics.Phase.ENTRY_METHODS, start);
+        analyze((WorkList) workList);
+    }
+
+    /**
+     * Checks whether given options support incremental solving,
+     * which restores the points-to sets and PFG of a previous run as they
+     * are, so the solver must not merge or filter them, and the contexts
+     * must be selected in the same way in both runs.
+     */
+    static void checkIncremental(AnalysisOptions options) {
+        if ((options.get("threads") != null && options.getInt("threads") > 1) ||
+                options.getBooleanOrDefault("collapse-cycles", false) ||
+                options.getBooleanOrDefault("filter-types", false)) {
+            throw new ConfigException("incremental solving does not support" +
+                    " multiple threads, cycle collapsing or type filtering");
+        }
+        if ("scaler".equals(options.getString("cs")) ||
+                options.getBooleanOrDefault("skip-singleton-contexts", false) ||
+                options.get("time-budget") != null || options.get("heap-budget") != null) {
+            throw new ConfigException("incremental solving requires" +
+                    " the same contexts in each run, so it does not support" +
+                    " Scaler, analysis budgets or skipping singleton contexts");
+        }
+        if (options.getString("taint-config") != null) {
+            // taint flows are only detected when calls are processed
+            throw new ConfigException(
+                    "incremental solving does not support taint analysis");
+        }
+    }
+
+    /**
+     * @return the state of this solver, for solving the analysis
+     * incrementally later. This method must be called after solving.
+     */
+    SolverState getState() {
+        return SolverState.capture(csManager, callGraph, pointerFlowGraph);
+    }
+
+    private void exportMetrics() {
+        metrics.recordContexts(callGraph.reachableMethods().map(CSMethod::getMethod));
+        metrics.addCounter("reachable-methods", callGraph.getNumberOfMethods());
+        metrics.addCounter("call-edges", callGraph.getNumberOfEdges());
+        metrics.addCounter("polled-entries", workList.getPolledEntries());
+        metrics.addCounter("merged-entries", workList.getMergedEntries());
+        metrics.addCounter("collapsed-nodes",
+                pointerFlowGraph.getNumberOfCollapsedNodes());
+        if (typeFilter != null) {
+            metrics.addCounter("filtered-objects", typeFilter.getFilteredObjects());
+        }
+        String output = metrics.export();
+        if (output != null) {
+            logger.info("Metrics written to {}", output);
+        }
     }
 
     private void initialize() {
-        csManager = new MapBasedCSManager();
+        objIndexer = new CSObjIndexer();
+        PointsToSetFactory.configure(options, objIndexer);
+        ListContextFactory.setCurrent(contextFactory);
+        csManager = makeCSManager(objIndexer);
+        if (preAnalysis != null && csManager instanceof ArrayBasedCSManager manager) {
+            manager.reserve(preAnalysis.getVarCounts());
+        }
+        String order = options.getString("work-list-order");
+        boolean collapseCycles = options.getBooleanOrDefault("collapse-cycles", false);
+        if (collapseCycles && options.getString("taint-config") != null) {
+            // taint sources, sinks and transfers are bound to the variables
+            // of calls, whose points-to sets must not be merged into
+            // the representatives of collapsed cycles
+            throw new ConfigException(
+                    "cycle collapsing does not support taint analysis");
+        }
+        if (threads > 1) {
+            if ((order != null && !order.equals("fifo")) || collapseCycles) {
+                throw new ConfigException("parallel solving only supports" +
+                        " the fifo work-list order without cycle collapsing");
+            }
+            csManager = new SynchronizedCSManager(csManager);
+            pointerFlowGraph = new ConcurrentPointerFlowGraph();
+            workList = new ParallelWorkList(threads);
+        } else {
+            PointerFlowGraph pfg = new PointerFlowGraph(preAnalysis != null ?
+                    preAnalysis.getNumberOfPFGNodes() : 0);
+            WorkList list = PriorityWorkList.make(order, pfg);
+            if (collapseCycles) {
+                pfg.enableCycleCollapsing(list);
+            }
+            pointerFlowGraph = pfg;
+            workList = list;
+        }
         callGraph = new CSCallGraph(csManager);
-        pointerFlowGraph = new PointerFlowGraph();
-        workList = new WorkList();
+        metrics = new SolverMetrics(options, callGraph);
+        if (options.getBooleanOrDefault("filter-types", false)) {
+            if (collapseCycles) {
+                // a collapsed cycle may contain pointers of different types
+                throw new ConfigException(
+                        "type filtering does not support cycle collapsing");
+            }
+            typeFilter = new TypeFilter(World.get().getTypeSystem());
+            workList.setTypeFilter(typeFilter);
+        }
         taintAnalysis = new TaintAnalysiss(this);
-        // process program entry, i.e., main method
+    }
+
+    /**
+     * Processes program entry, i.e., main method.
+     */
+    private void addEntryMethod() {
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
         CSMethod csMethod = csManager.getCSMethod(defContext, main);
@@ -124,6 +380,47 @@ public class Solver {
         addReachable(csMethod);
     }
 
+    /**
+     * Selects the implementation of CSManager according to
+     * option "cs-manager":
+     * <ul>
+     *     <li>map (default): {@link MapBasedCSManager}</li>
+     *     <li>array: {@link ArrayBasedCSManager}</li>
+     * </ul>
+     * Shared points-to sets (option "share-pts") are only given to pointers
+     * by {@link ArrayBasedCSManager}, so it is the default in that case.
+     */
+    private CSManager makeCSManager(CSObjIndexer objIndexer) {
+        String kind = options.getString("cs-manager");
+        boolean sharePts = options.getBooleanOrDefault("share-pts", false);
+        if (kind == null) {
+            kind = sharePts ? "array" : "map";
+        }
+        if (kind.equals("map")) {
+            if (sharePts) {
+                throw new ConfigException(
+                        "shared points-to sets require cs-manager:array");
+            }
+            return new MapBasedCSManager();
+        } else if (kind.equals("array")) {
+            return new ArrayBasedCSManager(objIndexer, contextFactory);
+        } else {
+            throw new ConfigException("Unknown CSManager: " + kind);
+        }
+    }
+
+    /**
+     * @return the constraint template of given method. The template is
+     * compiled when the method becomes reachable for the first time, and
+     * then instantiated for each of its contexts, instead of visiting
+     * the statements of the method again. {@link #addReachable} may use
+     * it as an alternative to {@link StmtProcessor}.
+     */
+    private MethodTemplate getTemplate(JMethod method) {
+        return templates.computeIfAbsent(method,
+                m -> MethodTemplate.compile(m, heapModel, csManager));
+    }
+
     /**
      * Processes new reachable context-sensitive method.
      */
@@ -156,10 +453,88 @@ public class Solver {
         // TODO - finish me
     }
 
+    /**
+     * Lets {@link #degradingSelector} check the budget of the analysis.
+     */
+    private void checkBudget() {
+        if (degradingSelector != null) {
+            degradingSelector.tick();
+        }
+    }
+
     /**
      * Processes work-list entries until the work-list is empty.
      */
-    private void analyze() {
+    private void analyze(WorkList workList) {
+        while (!workList.isEmpty()) {
+            checkBudget();
+            processTimed(workList.pollEntry());
+        }
+    }
+
+    /**
+     * Processes work-list entries with multiple worker threads until
+     * all entries are finished. Each worker processes the entries of
+     * its own partition of the work list via {@link #processEntry}.
+     */
+    private void analyzeInParallel(ParallelWorkList parallelWorkList) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; ++i) {
+                int worker = i;
+                workers.add(executor.submit(() -> {
+                    try {
+                        WorkList.Entry entry;
+                        while ((entry = parallelWorkList.pollEntry(worker)) != null) {
+                            checkBudget();
+                            processTimed(entry);
+                            parallelWorkList.finishEntry();
+                        }
+                    } catch (RuntimeException | Error e) {
+                        parallelWorkList.abort();
+                        throw e;
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new AnalysisException("Parallel pointer analysis failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Processes a work-list entry via {@link #processEntry}, and records
+     * the time and the growth of the points-to set of its pointer
+     * in the metrics.
+     */
+    private void processTimed(WorkList.Entry entry) {
+        if (!metrics.isEnabled()) {
+            processEntry(entry);
+            return;
+        }
+        Pointer pointer = entry.pointer();
+        int oldSize = sizeOf(pointer);
+        long start = metrics.start();
+        processEntry(entry);
+        metrics.stopPropagate(start, Math.max(0, sizeOf(pointer) - oldSize));
+    }
+
+    private static int sizeOf(Pointer pointer) {
+        PointsToSet pts = pointer.getPointsToSet();
+        return pts != null ? pts.size() : 0;
+    }
+
+    /**
+     * Processes a work-list entry, i.e., an iteration of analyze().
+     * In parallel solving, this method is called by multiple threads,
+     * but the entries of the same pointer are never processed concurrently.
+     */
+    private void processEntry(WorkList.Entry entry) {
         // TODO - finish me
     }
 
@@ -191,8 +566,59 @@ public class Solver {
      * @return the resolved callee.
      */
     private JMethod resolveCallee(CSObj recv, Invoke callSite) {
+        if (recv != null && preAnalysis != null) {
+            JMethod callee = preAnalysis.resolveCallee(callSite);
+            if (callee != null) {
+                return callee;
+            }
+        }
         Type type = recv != null ? recv.getObject().getType() : null;
-        return CallGraphs.resolveCallee(type, callSite);
+        return DispatchTable.resolveCallee(type, callSite);
+    }
+
+    /**
+     * Sets the result of the context-insensitive pre-analysis,
+     * which bounds and pre-sizes this solver.
+     */
+    void setPreAnalysis(PreAnalysis preAnalysis) {
+        this.preAnalysis = preAnalysis;
+    }
+
+    PropagationGraph getPointerFlowGraph() {
+        return pointerFlowGraph;
+    }
+
+    /**
+     * Freezes the result of this solver into a {@link CompactPointsToResult},
+     * and releases the structures which are only needed for solving.
+     * The results stored in the current result (e.g., by plugins) are kept.
+     * The solver cannot be used for solving afterwards.
+     *
+     * @return the compacted result, or the current result if it is too
+     * large to be compacted.
+     */
+    PointerAnalysisResult compact() {
+        CompactPointsToResult compact = CompactPointsToResult.compact(
+                csManager, callGraph, objIndexer);
+        if (compact == null) {
+            logger.warn("Points-to sets are too large to be compacted");
+            return getResult();
+        }
+        if (result != null) {
+            for (String key : result.getKeys()) {
+                compact.storeResult(key, result.getResult(key));
+            }
+        }
+        logger.info("Result compacted: {} distinct points-to sets in {} KB",
+                compact.getNumberOfDistinctSets(), compact.getBufferSize() / 1024);
+        result = compact;
+        csManager = null;
+        callGraph = null;
+        pointerFlowGraph = null;
+        workList = null;
+        typeFilter = null;
+        templates.clear();
+        return compact;
     }
 
     public PointerAnalysisResult getResult() {
@@ -0,0 +1,648 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.cs.CSCallGraph;
+import pascal.taie.analysis.pta.core.cs.context.Context;
+import pascal.taie.analysis.pta.core.cs.element.ArrayIndex;
+import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
+import pascal.taie.analysis.pta.core.cs.element.CSManager;
+import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSVar;
+import pascal.taie.analysis.pta.core.cs.element.InstanceField;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.core.cs.element.StaticField;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
+import pascal.taie.analysis.pta.cs.ElementKeys.ObjKey;
+import pascal.taie.analysis.pta.cs.ElementKeys.StmtKey;
+import pascal.taie.analysis.pta.cs.ElementKeys.TypeKey;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * State of a finished {@link Solver}, i.e., the points-to sets, the PFG
+ * and the call graph, saved for re-solving the analysis incrementally
+ * after some classes of the program change.
+ * <p>
+ * The state refers to program elements by their signatures and indexes
+ * (by {@link ElementKeys}, like {@link ResultFile}), so it can be restored
+ * in the world built for the changed program. Besides the PFG edges, the
+ * state records which pointers and methods depend on the points-to set of
+ * each base variable, i.e., the targets of its field/array accesses and
+ * the callees of its calls, as these dependencies are not PFG edges.
+ * <p>
+ * {@link #restore} retracts every fact which may be derived from the
+ * changed classes, and passes the remaining facts to the solver:
+ * the affected part is the closure of the dependencies from the
+ * changed methods and fields, and from the calls whose receiver objects
+ * are instances of changed classes (as dispatching them may change).
+ * The facts outside the affected part remain valid in the changed
+ * program, so solving the analysis from them results in the same
+ * fixed point as solving it from scratch.
+ */
+final class SolverState implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    private static final Logger logger = LogManager.getLogger(SolverState.class);
+
+    // keys of context-sensitive elements, see ElementKeys for the keys
+    // of objects and context elements
+
+    /**
+     * @param context keys of the context elements,
+     *                i.e., {@link ObjKey}, {@link StmtKey} and {@link TypeKey}.
+     */
+    private record CSObjKey(List<Object> context, ObjKey obj) implements Serializable {
+    }
+
+    private record MethodKey(List<Object> context, String method) implements Serializable {
+    }
+
+    private sealed interface PointerKey extends Serializable {
+    }
+
+    private record VarKey(List<Object> context, String method, int index, String name)
+            implements PointerKey {
+
+        private MethodKey getMethodKey() {
+            return new MethodKey(context, method);
+        }
+    }
+
+    private record StaticFieldKey(String field) implements PointerKey {
+    }
+
+    private record InstanceFieldKey(CSObjKey base, String field) implements PointerKey {
+    }
+
+    private record ArrayIndexKey(CSObjKey array) implements PointerKey {
+    }
+
+    private record CallEdgeKey(String kind, List<Object> context, StmtKey callSite,
+                               MethodKey callee) implements Serializable {
+
+        private MethodKey getCallerKey() {
+            return new MethodKey(context, callSite.method());
+        }
+    }
+
+    private final Map<PointerKey, List<CSObjKey>> pointsToSets = Maps.newMap();
+
+    /**
+     * PFG edges, i.e., map from a pointer to its successors.
+     */
+    private final Map<PointerKey, Set<PointerKey>> successors = Maps.newMap();
+
+    /**
+     * Map from a base variable to the pointers and methods which depend
+     * on its points-to set.
+     */
+    private final Map<PointerKey, Set<Object>> dependents = Maps.newMap();
+
+    private final Set<MethodKey> reachableMethods = Sets.newSet();
+
+    private final Set<CallEdgeKey> callEdges = Sets.newSet();
+
+    private SolverState() {
+    }
+
+    /**
+     * Receives the facts restored from a state, in the order of
+     * the methods below. The restored facts must not be propagated,
+     * except the points-to sets of the frontier pointers.
+     */
+    interface Handler {
+
+        /**
+         * Handles a reachable method whose constraints have been restored.
+         */
+        void onReachableMethod(CSMethod csMethod);
+
+        void onCallEdge(Edge<CSCallSite, CSMethod> edge);
+
+        void onPFGEdge(Pointer source, Pointer target);
+
+        /**
+         * Handles the points-to set of a pointer. If the pointer is
+         * on the frontier of the affected part, i.e., the pointer has
+         * successors or dependents in the affected part, its points-to
+         * set must be propagated again to re-derive them.
+         */
+        void onPointsToSet(Pointer pointer, PointsToSet pointsToSet, boolean frontier);
+
+        /**
+         * Handles a reachable method which has constraints in the affected
+         * part, so it must be processed as a new reachable method.
+         */
+        void onReprocessedMethod(CSMethod csMethod);
+    }
+
+    /**
+     * Captures the state of a solver which has finished.
+     */
+    static SolverState capture(CSManager csManager, CSCallGraph callGraph,
+                               PropagationGraph pointerFlowGraph) {
+        SolverState state = new SolverState();
+        Encoder encoder = new Encoder();
+        List<Pointer> pointers = new ArrayList<>(csManager.getCSVars());
+        pointers.addAll(csManager.getStaticFields());
+        pointers.addAll(csManager.getInstanceFields());
+        pointers.addAll(csManager.getArrayIndexes());
+        for (Pointer pointer : pointers) {
+            PointsToSet pts = pointer.getPointsToSet();
+            state.pointsToSets.put(encoder.encodePointer(pointer), pts == null ?
+                    List.of() : pts.objects().map(encoder::encodeCSObj).toList());
+        }
+        for (Pointer source : pointerFlowGraph.getNodes()) {
+            Set<PointerKey> succs = state.successors.computeIfAbsent(
+                    encoder.encodePointer(source), unused -> Sets.newSet());
+            pointerFlowGraph.getSuccsOf(source)
+                    .forEach(target -> succs.add(encoder.encodePointer(target)));
+        }
+        for (CSVar csVar : csManager.getCSVars()) {
+            state.addDependents(csManager, callGraph, csVar, encoder);
+        }
+        callGraph.reachableMethods().forEach(m ->
+                state.reachableMethods.add(encoder.encodeMethod(m)));
+        callGraph.edges().forEach(e -> state.callEdges.add(new CallEdgeKey(
+                e.getKind().name(),
+                encoder.encodeContext(e.getCallSite().getContext()),
+                encoder.encodeStmt(e.getCallSite().getCallSite()),
+                encoder.encodeMethod(e.getCallee()))));
+        return state;
+    }
+
+    private void addDependents(CSManager csManager, CSCallGraph callGraph,
+                               CSVar csVar, Encoder encoder) {
+        Var var = csVar.getVar();
+        Context context = csVar.getContext();
+        Set<Object> deps = Sets.newSet();
+        for (LoadField load : var.getLoadFields()) {
+            deps.add(encoder.encodePointer(csManager.getCSVar(context, load.getLValue())));
+        }
+        for (LoadArray load : var.getLoadArrays()) {
+            deps.add(encoder.encodePointer(csManager.getCSVar(context, load.getLValue())));
+        }
+        PointsToSet pts = csVar.getPointsToSet();
+        if (pts != null) {
+            for (CSObj obj : pts) {
+                for (StoreField store : var.getStoreFields()) {
+                    JField field = store.getFieldRef().resolve();
+                    deps.add(new InstanceFieldKey(encoder.encodeCSObj(obj),
+                            field.getSignature()));
+                }
+                if (!var.getStoreArrays().isEmpty()) {
+                    deps.add(new ArrayIndexKey(encoder.encodeCSObj(obj)));
+                }
+            }
+        }
+        for (Invoke invoke : var.getInvokes()) {
+            CSCallSite csCallSite = csManager.getCSCallSite(context, invoke);
+            callGraph.getCalleesOf(csCallSite)
+                    .forEach(callee -> deps.add(encoder.encodeMethod(callee)));
+            if (invoke.getLValue() != null) {
+                deps.add(encoder.encodePointer(
+                        csManager.getCSVar(context, invoke.getLValue())));
+            }
+        }
+        if (!deps.isEmpty()) {
+            dependents.put(encoder.encodePointer(csVar), deps);
+        }
+    }
+
+    /**
+     * Encodes context-sensitive elements to keys.
+     */
+    private static class Encoder extends ElementKeys.Encoder {
+
+        private CSObjKey encodeCSObj(CSObj csObj) {
+            return new CSObjKey(encodeContext(csObj.getContext()),
+                    encodeObj(csObj.getObject()));
+        }
+
+        private MethodKey encodeMethod(CSMethod csMethod) {
+            return new MethodKey(encodeContext(csMethod.getContext()),
+                    csMethod.getMethod().getSignature());
+        }
+
+        private PointerKey encodePointer(Pointer pointer) {
+            if (pointer instanceof CSVar csVar) {
+                Var var = csVar.getVar();
+                return new VarKey(encodeContext(csVar.getContext()),
+                        var.getMethod().getSignature(), var.getIndex(), var.getName());
+            } else if (pointer instanceof StaticField field) {
+                return new StaticFieldKey(field.getField().getSignature());
+            } else if (pointer instanceof InstanceField field) {
+                return new InstanceFieldKey(encodeCSObj(field.getBase()),
+                        field.getField().getSignature());
+            } else {
+                return new ArrayIndexKey(encodeCSObj(((ArrayIndex) pointer).getArray()));
+            }
+        }
+    }
+
+    /**
+     * Restores the facts of this state which are not affected by
+     * given changed classes, in the current world.
+     *
+     * @param changedClasses names of the changed (including added
+     *                       and removed) classes.
+     * @throws IllegalStateException if an unaffected element does not
+     *                               exist in the current world, which means that the given classes
+     *                               do not include all changed classes.
+     */
+    void restore(Set<String> changedClasses, CSManager csManager,
+                 HeapModel heapModel, Handler handler) {
+        Set<Object> affected = computeAffected(changedClasses);
+        // pointers and methods whose facts must be derived again
+        Map<MethodKey, List<VarKey>> varsOf = Maps.newMap();
+        pointsToSets.keySet().forEach(p -> {
+            if (p instanceof VarKey v) {
+                varsOf.computeIfAbsent(v.getMethodKey(), unused -> new ArrayList<>()).add(v);
+            }
+        });
+        Set<PointerKey> frontier = Sets.newSet();
+        pointsToSets.keySet().forEach(p -> {
+            if (!affected.contains(p) &&
+                    (hasAffected(successors.get(p), affected) ||
+                            hasAffected(dependents.get(p), affected))) {
+                frontier.add(p);
+            }
+        });
+        Set<MethodKey> reprocessed = Sets.newSet();
+        for (MethodKey m : reachableMethods) {
+            if (!affected.contains(m) && varsOf.getOrDefault(m, List.of()).stream()
+                    .anyMatch(v -> affected.contains(v) || frontier.contains(v))) {
+                reprocessed.add(m);
+            }
+        }
+        for (CallEdgeKey edge : callEdges) {
+            MethodKey caller = edge.getCallerKey();
+            if (affected.contains(edge.callee()) && !affected.contains(caller)) {
+                reprocessed.add(caller);
+            }
+        }
+        // the dynamic constraints of the reprocessed methods are also
+        // derived again, by propagating the points-to sets of their variables
+        reprocessed.forEach(m -> frontier.addAll(varsOf.getOrDefault(m, List.of())));
+        logger.info("Incremental solving: {} of {} pointers and {} of {} methods" +
+                        " are affected, {} methods are reprocessed",
+                pointsToSets.keySet().stream().filter(affected::contains).count(),
+                pointsToSets.size(),
+                reachableMethods.stream().filter(affected::contains).count(),
+                reachableMethods.size(), reprocessed.size());
+
+        Decoder decoder = new Decoder(csManager, heapModel);
+        for (MethodKey m : reachableMethods) {
+            if (!affected.contains(m) && !reprocessed.contains(m)) {
+                handler.onReachableMethod(decoder.decodeMethod(m));
+            }
+        }
+        for (CallEdgeKey edge : callEdges) {
+            MethodKey caller = edge.getCallerKey();
+            if (!affected.contains(edge.callee()) &&
+                    !affected.contains(caller) && !reprocessed.contains(caller)) {
+                handler.onCallEdge(new Edge<>(CallKind.valueOf(edge.kind()),
+                        csManager.getCSCallSite(decoder.decodeContext(edge.context()),
+                                decoder.decodeStmt(edge.callSite(), Invoke.class)),
+                        decoder.decodeMethod(edge.callee())));
+            }
+        }
+        successors.forEach((source, succs) -> {
+            if (!affected.contains(source)) {
+                for (PointerKey target : succs) {
+                    if (!affected.contains(target)) {
+                        handler.onPFGEdge(decoder.decodePointer(source),
+                                decoder.decodePointer(target));
+                    }
+                }
+            }
+        });
+        pointsToSets.forEach((pointer, objs) -> {
+            if (!affected.contains(pointer) && !objs.isEmpty()) {
+                PointsToSet pts = PointsToSetFactory.make();
+                objs.forEach(o -> pts.addObject(decoder.decodeCSObj(o)));
+                handler.onPointsToSet(decoder.decodePointer(pointer), pts,
+                        frontier.contains(pointer));
+            }
+        });
+        reprocessed.forEach(m -> handler.onReprocessedMethod(decoder.decodeMethod(m)));
+    }
+
+    private static boolean hasAffected(@Nullable Set<?> nodes, Set<Object> affected) {
+        if (nodes != null) {
+            for (Object node : nodes) {
+                if (affected.contains(node)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the pointers and methods whose facts may be derived from
+     * given changed classes, i.e., the closure of the PFG edges, the
+     * dependencies on base variables, and the call edges and variables
+     * of methods, from the elements of the changed classes.
+     */
+    private Set<Object> computeAffected(Set<String> changedClasses) {
+        Changes changes = new Changes(changedClasses);
+        Map<MethodKey, List<Object>> succsOfMethods = Maps.newMap();
+        pointsToSets.keySet().forEach(p -> {
+            if (p instanceof VarKey v) {
+                succsOfMethods.computeIfAbsent(v.getMethodKey(),
+                        unused -> new ArrayList<>()).add(v);
+            }
+        });
+        callEdges.forEach(e -> succsOfMethods.computeIfAbsent(e.getCallerKey(),
+                unused -> new ArrayList<>()).add(e.callee()));
+        Set<Object> affected = Sets.newSet();
+        Queue<Object> queue = new ArrayDeque<>();
+        // seeds
+        for (MethodKey m : reachableMethods) {
+            if (changes.isChangedMethod(m.method()) || changes.isStale(m.context())) {
+                queue.add(m);
+            }
+        }
+        pointsToSets.forEach((pointer, objs) -> {
+            if (changes.isChanged(pointer)) {
+                queue.add(pointer);
+            }
+            if (dependents.containsKey(pointer) &&
+                    objs.stream().anyMatch(o -> changes.isDispatchChanged(o.obj().type()))) {
+                // the calls on this variable may be dispatched to other methods
+                queue.addAll(dependents.get(pointer));
+            }
+        });
+        while (!queue.isEmpty()) {
+            Object node = queue.poll();
+            if (affected.add(node)) {
+                if (node instanceof MethodKey m) {
+                    queue.addAll(succsOfMethods.getOrDefault(m, List.of()));
+                } else {
+                    queue.addAll(successors.getOrDefault(node, Set.of()));
+                    queue.addAll(dependents.getOrDefault(node, Set.of()));
+                }
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Decides the elements of the state which are changed in the current world.
+     */
+    private static class Changes {
+
+        private final Set<String> changedClasses;
+
+        private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+        private final Map<String, Boolean> dispatchChanged = Maps.newMap();
+
+        private Changes(Set<String> changedClasses) {
+            this.changedClasses = changedClasses;
+        }
+
+        /**
+         * @return the declaring class of given method/field signature.
+         */
+        private static String getDeclaringClass(String signature) {
+            return signature.substring(1, signature.indexOf(':'));
+        }
+
+        private boolean isChangedMethod(String signature) {
+            return changedClasses.contains(getDeclaringClass(signature));
+        }
+
+        private boolean isChanged(PointerKey pointer) {
+            if (pointer instanceof VarKey v) {
+                return isChangedMethod(v.method()) || isStale(v.context());
+            } else if (pointer instanceof StaticFieldKey f) {
+                return changedClasses.contains(getDeclaringClass(f.field()));
+            } else if (pointer instanceof InstanceFieldKey f) {
+                return changedClasses.contains(getDeclaringClass(f.field())) ||
+                        isStale(f.base());
+            } else {
+                return isStale(((ArrayIndexKey) pointer).array());
+            }
+        }
+
+        /**
+         * @return true if given context refers to statements or objects
+         * of changed methods.
+         */
+        private boolean isStale(List<Object> context) {
+            for (Object element : context) {
+                if ((element instanceof StmtKey s && isChangedMethod(s.method())) ||
+                        (element instanceof ObjKey o && isStale(o))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isStale(ObjKey obj) {
+            return obj.allocation() != null && isChangedMethod(obj.allocation().method());
+        }
+
+        private boolean isStale(CSObjKey obj) {
+            return isStale(obj.obj()) || isStale(obj.context());
+        }
+
+        /**
+         * @return true if given type is a changed class or a subtype
+         * of a changed class, so the methods dispatched on its objects
+         * may change.
+         */
+        private boolean isDispatchChanged(String type) {
+            return dispatchChanged.computeIfAbsent(type, t -> {
+                if (changedClasses.contains(t)) {
+                    return true;
+                }
+                JClass jclass = hierarchy.getClass(t);
+                if (jclass == null) {
+                    // array types are dispatched as java.lang.Object
+                    return t.endsWith("[]") ?
+                            changedClasses.contains("java.lang.Object") : true;
+                }
+                return isSubtypeOfChanged(jclass);
+            });
+        }
+
+        private boolean isSubtypeOfChanged(JClass jclass) {
+            if (changedClasses.contains(jclass.getName())) {
+                return true;
+            }
+            if (jclass.getSuperClass() != null &&
+                    isSubtypeOfChanged(jclass.getSuperClass())) {
+                return true;
+            }
+            for (JClass i : jclass.getInterfaces()) {
+                if (isSubtypeOfChanged(i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Decodes keys to the context-sensitive elements of the current world.
+     */
+    private static class Decoder extends ElementKeys.Decoder {
+
+        private final CSManager csManager;
+
+        private final ClassHierarchy hierarchy = World.get().getClassHierarchy();
+
+        private Decoder(CSManager csManager, HeapModel heapModel) {
+            super(heapModel);
+            this.csManager = csManager;
+        }
+
+        private CSObj decodeCSObj(CSObjKey key) {
+            return csManager.getCSObj(decodeContext(key.context()), decodeObj(key.obj()));
+        }
+
+        private CSMethod decodeMethod(MethodKey key) {
+            return csManager.getCSMethod(decodeContext(key.context()),
+                    getMethod(key.method()));
+        }
+
+        private JField getField(String signature) {
+            JField field = hierarchy.getField(signature);
+            if (field == null) {
+                throw new IllegalStateException("Field " + signature + " not found");
+            }
+            return field;
+        }
+
+        private Pointer decodePointer(PointerKey key) {
+            if (key instanceof VarKey v) {
+                List<Var> vars = getMethod(v.method()).getIR().getVars();
+                if (v.index() >= vars.size() ||
+                        !vars.get(v.index()).getName().equals(v.name())) {
+                    throw new IllegalStateException("Variable " + v + " not found");
+                }
+                return csManager.getCSVar(decodeContext(v.context()), vars.get(v.index()));
+            } else if (key instanceof StaticFieldKey f) {
+                return csManager.getStaticField(getField(f.field()));
+            } else if (key instanceof InstanceFieldKey f) {
+                return csManager.getInstanceField(decodeCSObj(f.base()), getField(f.field()));
+            } else {
+                return csManager.getArrayIndex(decodeCSObj(((ArrayIndexKey) key).array()));
+            }
+        }
+    }
+
+    /**
+     * @return the state saved in given file, or null if the file does
+     * not exist or cannot be read.
+     */
+    static @Nullable SolverState read(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            SolverState state = (SolverState) in.readObject();
+            logger.info("Loaded solver state from {}", file);
+            return state;
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            logger.warn("Failed to load solver state from {}: {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves this state to given file.
+     */
+    void write(Path file) {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) {
+                Files.createDirectories(dir);
+            }
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeObject(this);
+            }
+            logger.info("Saved solver state to {}", file);
+        } catch (IOException e) {
+            logger.warn("Failed to save solver state to {}: {}", file, e);
+        }
+    }
+
+    /**
+     * @return the names of the classes given by option "changed-classes",
+     * separated by commas.
+     */
+    static Set<String> getChangedClasses(@Nullable String option) {
+        Set<String> changedClasses = Sets.newSet();
+        if (option != null) {
+            for (String name : option.split(",")) {
+                if (!name.isBlank()) {
+                    changedClasses.add(name.strip());
+                }
+            }
+        }
+        return changedClasses;
+    }
+}
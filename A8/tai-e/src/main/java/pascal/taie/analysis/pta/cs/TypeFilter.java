@@ -0,0 +1,109 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.cs;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filters the objects that flow along PFG edges by the declared types
+ * of the target pointers, so that objects which can never be pointed to
+ * by a pointer (e.g., the objects flowing through casts, parameters
+ * and returns into narrower types) are not propagated any further.
+ * <p>
+ * The subtype relations queried by this filter are cached, since
+ * the same pairs of types are checked over and over again.
+ * This class is thread-safe.
+ */
+class TypeFilter {
+
+    private final TypeSystem typeSystem;
+
+    /**
+     * Map from declared type to the map from object type to whether
+     * the object type is a subtype of the declared type.
+     */
+    private final Map<Type, Map<Type, Boolean>> subtypeCache =
+            Maps.newConcurrentMap();
+
+    private final LongAdder filteredObjects = new LongAdder();
+
+    TypeFilter(TypeSystem typeSystem) {
+        this.typeSystem = typeSystem;
+    }
+
+    /**
+     * @return the objects in given points-to set whose types are
+     * subtypes of the type of the target pointer. If all objects
+     * pass the filter, returns the given set itself.
+     */
+    PointsToSet filter(Pointer target, PointsToSet pointsToSet) {
+        Type type = target.getType();
+        Map<Type, Boolean> subtypes = subtypeCache.computeIfAbsent(
+                type, t -> Maps.newConcurrentMap());
+        boolean allPass = true;
+        for (CSObj obj : pointsToSet) {
+            if (!isSubtype(subtypes, type, obj)) {
+                allPass = false;
+                break;
+            }
+        }
+        if (allPass) {
+            return pointsToSet;
+        }
+        PointsToSet result = PointsToSetFactory.make();
+        for (CSObj obj : pointsToSet) {
+            if (isSubtype(subtypes, type, obj)) {
+                result.addObject(obj);
+            } else {
+                filteredObjects.increment();
+            }
+        }
+        return result;
+    }
+
+    private boolean isSubtype(Map<Type, Boolean> subtypes, Type type, CSObj obj) {
+        Type objType = obj.getObject().getType();
+        Boolean result = subtypes.get(objType);
+        if (result == null) {
+            result = typeSystem.isSubtype(type, objType);
+            subtypes.put(objType, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of objects that have been filtered out.
+     */
+    long getFilteredObjects() {
+        return filteredObjects.sum();
+    }
+}
@@ -24,22 +24,101 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.util.collection.Maps;
 
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents work list in pointer analysis.
+ * <p>
+ * The work list keeps at most one pending entry for each pointer.
+ * When an entry is added for a pointer which is already pending,
+ * the given points-to set is merged into the pending one instead
+ * of being queued again, so that each pointer is propagated once
+ * for all deltas that arrive before it is polled.
+ * <p>
+ * Pending pointers are polled in FIFO order by default;
+ * see {@link PriorityWorkList} for other orders.
  */
-class WorkList {
+class WorkList implements PropagationQueue {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    /**
+     * Pending pointers in the order they are polled.
+     */
+    private Queue<Pointer> pointers = new ArrayDeque<>();
+
+    /**
+     * Map from pending pointer to its pending points-to set.
+     */
+    private final Map<Pointer, Delta> deltas = Maps.newMap();
 
     /**
-     * Adds an entry to the work list.
+     * Number of entries which were merged into pending entries.
      */
-    void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+    private long mergedEntries = 0;
+
+    /**
+     * Number of entries which were polled, i.e., propagated.
+     */
+    private long polledEntries = 0;
+
+    /**
+     * Maps each pointer to the pointer which represents it in the PFG,
+     * see {@link PointerFlowGraph#getRepOf(Pointer)}.
+     */
+    private UnaryOperator<Pointer> repOf = UnaryOperator.identity();
+
+    /**
+     * Filter applied to the points-to sets of new entries,
+     * or null if objects are not filtered.
+     */
+    private TypeFilter typeFilter;
+
+    /**
+     * Moves the pending pointers to given queue, which
+     * decides the order of pending pointers from now on.
+     */
+    void reorder(Queue<Pointer> pointers) {
+        pointers.addAll(this.pointers);
+        this.pointers = pointers;
+    }
+
+    /**
+     * Sets the function which maps pointers to their representatives.
+     * Entries are then keyed and returned by the representatives.
+     */
+    void setRepresentatives(UnaryOperator<Pointer> repOf) {
+        this.repOf = repOf;
+    }
+
+    @Override
+    public void setTypeFilter(TypeFilter typeFilter) {
+        this.typeFilter = typeFilter;
+    }
+
+    @Override
+    public boolean addEntry(Pointer pointer, PointsToSet pointsToSet) {
+        if (typeFilter != null) {
+            pointsToSet = typeFilter.filter(pointer, pointsToSet);
+            if (pointsToSet.isEmpty()) {
+                return false;
+            }
+        }
+        pointer = repOf.apply(pointer);
+        Delta delta = deltas.get(pointer);
+        if (delta == null) {
+            deltas.put(pointer, new Delta(pointsToSet));
+            pointers.add(pointer);
+            return true;
+        } else {
+            delta.merge(pointsToSet);
+            ++mergedEntries;
+            return false;
+        }
     }
 
     /**
@@ -47,14 +126,31 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Pointer pointer = pointers.poll();
+        if (pointer == null) {
+            return null;
+        }
+        PointsToSet pointsToSet = deltas.remove(pointer).pointsToSet;
+        ++polledEntries;
+        // the pointer may have been merged after its entry was added
+        return new Entry(repOf.apply(pointer), pointsToSet);
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return pointers.isEmpty();
+    }
+
+    @Override
+    public long getMergedEntries() {
+        return mergedEntries;
+    }
+
+    @Override
+    public long getPolledEntries() {
+        return polledEntries;
     }
 
     /**
@@ -63,4 +159,34 @@ class WorkList {
      */
     record Entry(Pointer pointer, PointsToSet pointsToSet) {
     }
+
+    /**
+     * Pending points-to set of a pointer.
+     */
+    private static class Delta {
+
+        private PointsToSet pointsToSet;
+
+        /**
+         * Whether {@link #pointsToSet} is owned by this work list.
+         * The set given by the caller may be shared (e.g., the same
+         * difference set is propagated to all PFG successors), thus
+         * it is copied before the first in-place merge.
+         */
+        private boolean owned = false;
+
+        private Delta(PointsToSet pointsToSet) {
+            this.pointsToSet = pointsToSet;
+        }
+
+        private void merge(PointsToSet pts) {
+            if (!owned) {
+                PointsToSet copy = PointsToSetFactory.make();
+                copy.addAll(pointsToSet);
+                pointsToSet = copy;
+                owned = true;
+            }
+            pointsToSet.addAll(pts);
+        }
+    }
 }
@@ -23,6 +23,9 @@
 package pascal.taie.analysis.pta.pts;
 
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.analysis.pta.core.cs.element.CSObjIndexer;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
 import pascal.taie.util.collection.Sets;
 
 import java.util.Set;
@@ -33,10 +36,107 @@ import java.util.function.Supplier;
  */
 public class PointsToSetFactory {
 
-    private static final Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
+    private static Supplier<Set<CSObj>> setFactory = Sets::newHybridSet;
 
+    /**
+     * Indexer shared by all bit-set-based points-to sets, or null if
+     * hash-set-based points-to sets are used.
+     */
+    private static CSObjIndexer indexer;
+
+    /**
+     * Pool of shared points-to sets, or null if each points-to set
+     * owns its objects.
+     */
+    private static PointsToSetPool pool;
+
+    /**
+     * Selects the implementation of points-to sets according to
+     * option "pts" of the pointer analysis:
+     * <ul>
+     *     <li>hybrid (default): hybrid hash sets of {@link CSObj}</li>
+     *     <li>bit-set: sparse/dense bit sets of indexes of {@link CSObj}</li>
+     * </ul>
+     * If the analysis runs with multiple threads (option "threads"),
+     * hybrid points-to sets are replaced by concurrent hash sets.
+     * <p>
+     * If option "share-pts" is true, equal points-to sets of pointers
+     * (see {@link #makeForPointer()}) share one hash-consed set of the
+     * selected implementation (see {@link SharedPointsToSet}). Only the
+     * CSManagers that create the points-to sets of their pointers by
+     * {@link #makeForPointer()} share them, thus the solver selects such
+     * a CSManager for this option.
+     * This method should be called before the analysis creates
+     * any points-to set, and {@link #reset()} should be called after
+     * the analysis finishes.
+     */
+    public static void configure(AnalysisOptions options) {
+        configure(options, new CSObjIndexer());
+    }
+
+    /**
+     * Same as {@link #configure(AnalysisOptions)}, but bit-set-based
+     * points-to sets share given indexer, so that the indexes of objects
+     * can also be used by others, e.g., the CSManager that creates
+     * the objects.
+     */
+    public static void configure(AnalysisOptions options, CSObjIndexer objIndexer) {
+        String pts = options.getString("pts");
+        boolean parallel = options.get("threads") != null &&
+                options.getInt("threads") > 1;
+        if (pts == null || pts.equals("hybrid")) {
+            indexer = null;
+            setFactory = parallel ? Sets::newConcurrentSet : Sets::newHybridSet;
+        } else if (pts.equals("bit-set")) {
+            if (parallel) {
+                throw new ConfigException(
+                        "bit-set points-to sets do not support multiple threads");
+            }
+            indexer = objIndexer;
+        } else {
+            throw new ConfigException("Unknown points-to set: " + pts);
+        }
+        if (options.getBooleanOrDefault("share-pts", false)) {
+            if (parallel) {
+                throw new ConfigException(
+                        "shared points-to sets do not support multiple threads");
+            }
+            pool = new PointsToSetPool(PointsToSetFactory::make);
+        } else {
+            pool = null;
+        }
+    }
+
+    /**
+     * Restores the default hybrid points-to sets, and releases the indexer
+     * and the pool of the last configuration, so that they do not keep
+     * the objects of a finished analysis alive. The points-to sets made
+     * before keep working, as they refer to their indexer or pool by
+     * themselves.
+     */
+    public static void reset() {
+        setFactory = Sets::newHybridSet;
+        indexer = null;
+        pool = null;
+    }
+
+    /**
+     * @return a points-to set that is owned by a pointer, and shared
+     * with other equal points-to sets of pointers if option "share-pts"
+     * is true.
+     */
+    public static PointsToSet makeForPointer() {
+        return pool != null ? new SharedPointsToSet(pool) : make();
+    }
+
+    /**
+     * @return a points-to set that is never shared, e.g., for the
+     * difference sets and temporary sets during propagation.
+     */
     public static PointsToSet make() {
-        return new DelegatePointsToSet(setFactory.get());
+        return indexer != null ?
+                new BitSetPointsToSet(indexer) :
+                new DelegatePointsToSet(setFactory.get());
     }
 
     /**